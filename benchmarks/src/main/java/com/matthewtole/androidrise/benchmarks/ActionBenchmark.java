@@ -0,0 +1,96 @@
+package com.matthewtole.androidrise.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.matthewtole.androidrise.lib.Move;
+import com.matthewtole.androidrise.lib.RiseBoard;
+import com.matthewtole.androidrise.lib.RiseGame;
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
+
+/**
+ * RiseGame.doAction for each kind of action, made with the same touches a
+ * player would use and with the resulting updates drained as GameView does.
+ * 
+ * Every operation first resets the game to its fixture with copyFrom; the
+ * reset benchmark measures that on its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionBenchmark {
+
+	private static final String[] TYPES = { "", "TILE", "WORKER", "DEMOLISH",
+			"MOVE", "JUMP", "SACRIFICE_ADD", "SACRIFICE_REMOVE" };
+
+	// Scripted moves played before looking for the action, so that every
+	// action is measured on a similar mid-game board.
+	private static final int PLIES = 20;
+
+	@Param({ "TILE", "WORKER", "MOVE", "JUMP", "DEMOLISH", "SACRIFICE_ADD",
+			"SACRIFICE_REMOVE" })
+	public String action;
+
+	@Param({ "the_pit" })
+	public String layout;
+
+	private RiseGame fixture;
+	private RiseGame game;
+	private GamePlayer player;
+	private int[] clicks = new int[Move.MAX_CLICKS];
+	private int clickCount;
+
+	@Setup
+	public void setup() {
+		int type = type(this.action);
+		Fixtures.Position position = type == Move.DEMOLISH ? Fixtures
+				.findTower(this.layout) : Fixtures.find(this.layout, PLIES,
+				type);
+		this.fixture = position.game;
+		this.game = new RiseGame(this.fixture);
+		this.player = this.fixture.getCurrentPlayer();
+		this.clickCount = Move.clicks(position.move, this.clicks);
+	}
+
+	@Benchmark
+	public void reset() {
+		this.game.copyFrom(this.fixture);
+	}
+
+	@Benchmark
+	public void doAction(Blackhole blackhole) {
+		this.game.copyFrom(this.fixture);
+		for (int i = 0; i < this.clickCount; i += 1) {
+			int cell = this.clicks[i];
+			blackhole.consume(this.game.doAction(RiseBoard.cellX(cell),
+					RiseBoard.cellY(cell), this.player));
+		}
+		while (this.game.hasUpdate()) {
+			blackhole.consume(this.game.getUpdate());
+		}
+	}
+
+	static int type(String name) {
+		for (int i = 1; i < TYPES.length; i += 1) {
+			if (TYPES[i].equals(name)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown action " + name);
+	}
+}
@@ -0,0 +1,241 @@
+package com.matthewtole.androidrise.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import com.matthewtole.androidrise.lib.FileAssetSource;
+import com.matthewtole.androidrise.lib.LayoutStore;
+import com.matthewtole.androidrise.lib.Log;
+import com.matthewtole.androidrise.lib.Move;
+import com.matthewtole.androidrise.lib.MoveList;
+import com.matthewtole.androidrise.lib.RiseBoard;
+import com.matthewtole.androidrise.lib.RiseGame;
+import com.matthewtole.androidrise.lib.RiseTile;
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
+
+/**
+ * Fixed positions for the benchmarks: the start of each layout in
+ * assets/layouts, and mid-game positions reached by playing seeded random
+ * moves from it, so every run measures the same boards.
+ */
+public final class Fixtures {
+
+	public static final String ASSETS_PROPERTY = "rise.assets";
+
+	// Chance that a scripted game places a tile when it can, so that the
+	// board fills up rather than the game ending in an early capture.
+	private static final double TILE_BIAS = 0.75;
+	private static final int MAX_SEEDS = 10000;
+	// How long a scripted game may go on past plies before giving up on it.
+	private static final int MAX_EXTRA_PLIES = 200;
+
+	private static final LayoutStore LAYOUTS = new LayoutStore(
+			new FileAssetSource(assetsDir()));
+
+	static {
+		Log.setLogger(null);
+	}
+
+	private Fixtures() {
+	}
+
+	/**
+	 * A position together with a move that is legal in it.
+	 */
+	public static final class Position {
+		public final RiseGame game;
+		public final long move;
+
+		Position(RiseGame game, long move) {
+			this.game = game;
+			this.move = move;
+		}
+	}
+
+	public static RiseGame start(String layout) {
+		RiseGame game = new RiseGame();
+		try {
+			game.setup(LAYOUTS.get(layout));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("No layout named " + layout
+					+ " in " + assetsDir().getAbsolutePath(), e);
+		}
+		return game;
+	}
+
+	/**
+	 * Finds the first scripted game on the layout that, after at least plies
+	 * moves, reaches a position where the player to move has movesLeft moves
+	 * left and a legal move of the given type.
+	 */
+	public static Position find(String layout, int plies, int movesLeft,
+			int moveType) {
+		RiseGame start = start(layout);
+		MoveList moves = new MoveList();
+		for (long seed = 0; seed < MAX_SEEDS; seed += 1) {
+			Random random = new Random(seed);
+			RiseGame game = new RiseGame(start);
+			for (int ply = 0; ply < plies + MAX_EXTRA_PLIES
+					&& game.getWinner() == GamePlayer.UNKNOWN; ply += 1) {
+				if (game.generateMoves(moves) == 0) {
+					break;
+				}
+				if (ply >= plies
+						&& (movesLeft < 0 || game.getMovesLeft() == movesLeft)) {
+					long move = first(moves, moveType);
+					if (move != Move.NONE) {
+						// Copying drops the make/unmake history.
+						return new Position(new RiseGame(game), move);
+					}
+				}
+				game.makeMove(pick(moves, random));
+			}
+		}
+		throw new IllegalStateException("No " + layout + " position after "
+				+ plies + " plies with a move of type " + moveType);
+	}
+
+	/**
+	 * Like find, but for any number of moves left.
+	 */
+	public static Position find(String layout, int plies, int moveType) {
+		return find(layout, plies, -1, moveType);
+	}
+
+	/**
+	 * Finds a position where the first player can demolish one of their own
+	 * towers. Random play almost never surrounds a tile with six workers, so
+	 * the first player instead greedily works towards surrounding a tile next
+	 * to their starting worker while the other plays at random.
+	 */
+	public static Position findTower(String layout) {
+		RiseGame start = start(layout);
+		GamePlayer builder = start.getCurrentPlayer();
+		int target = target(start, builder);
+		MoveList moves = new MoveList();
+		for (long seed = 0; seed < MAX_SEEDS; seed += 1) {
+			Random random = new Random(seed);
+			RiseGame game = new RiseGame(start);
+			for (int ply = 0; ply < MAX_EXTRA_PLIES
+					&& game.getWinner() == GamePlayer.UNKNOWN; ply += 1) {
+				if (game.generateMoves(moves) == 0) {
+					break;
+				}
+				if (game.getCurrentPlayer() != builder) {
+					game.makeMove(pick(moves, random));
+					continue;
+				}
+				long move = first(moves, Move.DEMOLISH);
+				if (move != Move.NONE) {
+					return new Position(new RiseGame(game), move);
+				}
+				game.makeMove(build(game, moves, target, builder, random));
+			}
+		}
+		throw new IllegalStateException("No " + layout
+				+ " position with a tower to demolish");
+	}
+
+	private static int target(RiseGame game, GamePlayer player) {
+		for (int cell = 0; cell < RiseBoard.CELLS; cell += 1) {
+			if (!tile(game, cell).isTile()) {
+				continue;
+			}
+			for (int d = 0; d < 6; d += 1) {
+				int next = RiseBoard.neighbour(cell, d);
+				if (next != RiseBoard.OFF_BOARD
+						&& tile(game, next).isWorker(player)) {
+					return cell;
+				}
+			}
+		}
+		throw new IllegalStateException("No tile next to a " + player
+				+ " worker");
+	}
+
+	private static long build(RiseGame game, MoveList moves, int target,
+			GamePlayer player, Random random) {
+		long best = moves.get(0);
+		int bestScore = Integer.MIN_VALUE;
+		for (int i = 0; i < moves.size(); i += 1) {
+			game.makeMove(moves.get(i));
+			int score = progress(game, target, player) * 16 + random.nextInt(16);
+			game.unmakeMove();
+			if (score > bestScore) {
+				bestScore = score;
+				best = moves.get(i);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * How close the player is to surrounding the target with workers, or a
+	 * large penalty if the target has been covered.
+	 */
+	private static int progress(RiseGame game, int target, GamePlayer player) {
+		if (!tile(game, target).isTile()) {
+			return -1000;
+		}
+		int score = 0;
+		for (int d = 0; d < 6; d += 1) {
+			int cell = RiseBoard.neighbour(target, d);
+			if (cell == RiseBoard.OFF_BOARD) {
+				continue;
+			}
+			RiseTile next = tile(game, cell);
+			if (next.isWorker(player)) {
+				score += 4;
+			} else if (next.isTile()) {
+				score += 1;
+			}
+		}
+		return score;
+	}
+
+	private static RiseTile tile(RiseGame game, int cell) {
+		return game.getTile(RiseBoard.cellX(cell), RiseBoard.cellY(cell));
+	}
+
+	private static long first(MoveList moves, int moveType) {
+		for (int i = 0; i < moves.size(); i += 1) {
+			if (Move.type(moves.get(i)) == moveType) {
+				return moves.get(i);
+			}
+		}
+		return Move.NONE;
+	}
+
+	private static long pick(MoveList moves, Random random) {
+		if (random.nextDouble() < TILE_BIAS) {
+			int tiles = 0;
+			for (int i = 0; i < moves.size(); i += 1) {
+				if (Move.type(moves.get(i)) == Move.TILE) {
+					tiles += 1;
+				}
+			}
+			if (tiles > 0) {
+				int n = random.nextInt(tiles);
+				for (int i = 0; i < moves.size(); i += 1) {
+					if (Move.type(moves.get(i)) == Move.TILE && n-- == 0) {
+						return moves.get(i);
+					}
+				}
+			}
+		}
+		return moves.get(random.nextInt(moves.size()));
+	}
+
+	private static File assetsDir() {
+		String path = System.getProperty(ASSETS_PROPERTY);
+		if (path != null) {
+			return new File(path);
+		}
+		File here = new File("assets");
+		if (new File(here, "layouts").isDirectory()) {
+			return here;
+		}
+		return new File("../assets");
+	}
+}
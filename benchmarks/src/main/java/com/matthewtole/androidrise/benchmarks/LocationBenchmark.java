@@ -0,0 +1,63 @@
+package com.matthewtole.androidrise.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthewtole.androidrise.lib.Geometry;
+import com.matthewtole.androidrise.lib.GridLocation;
+import com.matthewtole.androidrise.lib.RiseBoard;
+import com.matthewtole.androidrise.lib.ScreenLocation;
+
+/**
+ * Converting touches to grid cells and grid cells to screen positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationBenchmark {
+
+	private static final int POINTS = 1024;
+
+	private ScreenLocation[] screen = new ScreenLocation[POINTS];
+	private GridLocation[] grid = new GridLocation[POINTS];
+	private int next;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		int width = RiseBoard.SIZE * Geometry.TILE_WIDTH;
+		int height = RiseBoard.SIZE * Geometry.TILE_HEIGHT_THREEQUARTERS;
+		for (int i = 0; i < POINTS; i += 1) {
+			this.screen[i] = new ScreenLocation(random.nextInt(width),
+					random.nextInt(height));
+			this.grid[i] = new GridLocation(random.nextInt(RiseBoard.SIZE),
+					random.nextInt(RiseBoard.SIZE));
+		}
+	}
+
+	@Benchmark
+	public GridLocation toGridLocation() {
+		this.next = (this.next + 1) & (POINTS - 1);
+		return this.screen[this.next].toGridLocation();
+	}
+
+	@Benchmark
+	public ScreenLocation toScreen() {
+		this.next = (this.next + 1) & (POINTS - 1);
+		return this.grid[this.next].toScreen();
+	}
+}
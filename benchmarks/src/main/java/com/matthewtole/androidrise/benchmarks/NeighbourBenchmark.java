@@ -0,0 +1,114 @@
+package com.matthewtole.androidrise.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthewtole.androidrise.lib.Move;
+import com.matthewtole.androidrise.lib.RiseBoard;
+import com.matthewtole.androidrise.lib.RiseGame;
+import com.matthewtole.androidrise.lib.RiseTile;
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
+
+/**
+ * The neighbour helpers in RiseBoard, called on the cells of a mid-game
+ * board and the blank cells around it. Each operation is one call, cycling
+ * through the cells.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighbourBenchmark {
+
+	private static final int PLIES = 40;
+	private static final int CELLS = 256;
+
+	@Param({ "the_pit" })
+	public String layout;
+
+	private RiseBoard board;
+	private int[] cells = new int[CELLS];
+	private int next;
+
+	@Setup
+	public void setup() {
+		RiseGame game = Fixtures.find(this.layout, PLIES, Move.TILE).game;
+
+		// Rebuild the position's tiles and workers on a board of our own.
+		this.board = new RiseBoard();
+		int count = 0;
+		for (int x = 0; x < RiseBoard.SIZE; x += 1) {
+			for (int y = 0; y < RiseBoard.SIZE; y += 1) {
+				RiseTile tile = game.getTile(x, y);
+				int cell = RiseBoard.cell(x, y);
+				if (tile.isWorker()) {
+					this.board.setWorker(cell, tile.pieceColour());
+				} else if (tile.isNotBlank()) {
+					this.board.setTile(cell);
+				}
+			}
+		}
+		for (int cell = 0; cell < RiseBoard.CELLS && count < CELLS; cell += 1) {
+			if (this.board.isNotBlank(cell) || this.board.hasNeighbour(cell)) {
+				this.cells[count++] = cell;
+			}
+		}
+		for (int i = count; i < CELLS; i += 1) {
+			this.cells[i] = this.cells[i % count];
+		}
+	}
+
+	private int nextCell() {
+		this.next = (this.next + 1) & (CELLS - 1);
+		return this.cells[this.next];
+	}
+
+	@Benchmark
+	public int neighbour() {
+		int cell = this.nextCell();
+		int sum = 0;
+		for (int d = 0; d < 6; d += 1) {
+			sum += RiseBoard.neighbour(cell, d);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public boolean areNeighbours() {
+		return RiseBoard.areNeighbours(this.nextCell(), this.cells[(this.next
+				* 7 + 1) & (CELLS - 1)]);
+	}
+
+	@Benchmark
+	public boolean anyNeighbour() {
+		return RiseBoard.anyNeighbour(this.nextCell(), this.board.getTiles());
+	}
+
+	@Benchmark
+	public boolean allNeighbours() {
+		return RiseBoard.allNeighbours(this.nextCell(), this.board.getTiles());
+	}
+
+	@Benchmark
+	public boolean hasNeighbour() {
+		return this.board.hasNeighbour(this.nextCell());
+	}
+
+	@Benchmark
+	public boolean hasNeighbourWorker() {
+		return this.board.hasNeighbourWorker(this.nextCell(), GamePlayer.RED);
+	}
+}
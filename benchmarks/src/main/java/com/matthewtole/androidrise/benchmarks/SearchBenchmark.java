@@ -0,0 +1,95 @@
+package com.matthewtole.androidrise.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthewtole.androidrise.lib.Move;
+import com.matthewtole.androidrise.lib.RiseGame;
+import com.matthewtole.androidrise.lib.ai.AlphaBetaSearch;
+import com.matthewtole.androidrise.lib.ai.MonteCarloSearch;
+
+/**
+ * How much each search gets done in a fixed time budget, at the start of a
+ * layout and late in a game, when almost every legal move is a sacrifice.
+ * Every call takes the budget, so the score to read is the counters: the
+ * nodes searched by alpha-beta or playouts for Monte Carlo, and the depths
+ * alpha-beta reached, added up over each iteration. Divide them by the calls
+ * made, the score times the iteration time, for the amount per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+	private static final int LATE_PLIES = 120;
+	private static final long BUDGET_MILLIS = 100;
+	private static final int TABLE_SIZE_BITS = 18;
+
+	@Param({ "the_pit", "cold_war" })
+	public String layout;
+
+	@Param({ "opening", "late" })
+	public String board;
+
+	private RiseGame fixture;
+	private RiseGame game;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long work;
+		public long depth;
+
+		@Setup(Level.Iteration)
+		public void clear() {
+			this.work = 0;
+			this.depth = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		if ("late".equals(this.board)) {
+			this.fixture = Fixtures.find(this.layout, LATE_PLIES,
+					Move.SACRIFICE_ADD).game;
+		} else {
+			this.fixture = Fixtures.start(this.layout);
+		}
+		this.game = new RiseGame(this.fixture);
+	}
+
+	@Benchmark
+	public long alphaBeta(Counters counters) {
+		this.game.copyFrom(this.fixture);
+		AlphaBetaSearch search = new AlphaBetaSearch(TABLE_SIZE_BITS);
+		long move = search.findMove(this.game, BUDGET_MILLIS);
+		counters.work += search.getNodes();
+		counters.depth += search.getDepthReached();
+		return move;
+	}
+
+	@Benchmark
+	public long monteCarlo(Counters counters) {
+		this.game.copyFrom(this.fixture);
+		MonteCarloSearch search = new MonteCarloSearch(1);
+		long move = search.findMove(this.game, BUDGET_MILLIS);
+		counters.work += search.getPlayouts();
+		return move;
+	}
+}
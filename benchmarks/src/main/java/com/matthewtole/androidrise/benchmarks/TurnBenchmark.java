@@ -0,0 +1,91 @@
+package com.matthewtole.androidrise.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.matthewtole.androidrise.lib.Move;
+import com.matthewtole.androidrise.lib.RiseBoard;
+import com.matthewtole.androidrise.lib.RiseGame;
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
+
+/**
+ * The bookkeeping after a move, on the starting board of each layout and on a
+ * dense mid-game board. Placing a tile with two moves left runs only
+ * moveMade; with one move left it also runs endTurn, which processes the
+ * towers for the next player.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TurnBenchmark {
+
+	private static final int SPARSE_PLIES = 0;
+	private static final int DENSE_PLIES = 50;
+
+	@Param({ "the_pit", "bridge", "cold_war", "neighbours", "node_zero" })
+	public String layout;
+
+	@Param({ "sparse", "dense" })
+	public String board;
+
+	private Turn moveMade;
+	private Turn endTurn;
+
+	private static final class Turn {
+		final RiseGame fixture;
+		final RiseGame game;
+		final GamePlayer player;
+		final int x;
+		final int y;
+
+		Turn(Fixtures.Position position) {
+			this.fixture = position.game;
+			this.game = new RiseGame(this.fixture);
+			this.player = this.fixture.getCurrentPlayer();
+			this.x = RiseBoard.cellX(Move.cell(position.move));
+			this.y = RiseBoard.cellY(Move.cell(position.move));
+		}
+
+		void run(Blackhole blackhole) {
+			this.game.copyFrom(this.fixture);
+			blackhole.consume(this.game.doAction(this.x, this.y, this.player));
+			while (this.game.hasUpdate()) {
+				blackhole.consume(this.game.getUpdate());
+			}
+		}
+	}
+
+	@Setup
+	public void setup() {
+		int plies = "dense".equals(this.board) ? DENSE_PLIES : SPARSE_PLIES;
+		this.moveMade = new Turn(Fixtures.find(this.layout, plies, 2,
+				Move.TILE));
+		this.endTurn = new Turn(Fixtures.find(this.layout, plies, 1,
+				Move.TILE));
+	}
+
+	@Benchmark
+	public void moveMade(Blackhole blackhole) {
+		this.moveMade.run(blackhole);
+	}
+
+	@Benchmark
+	public void endTurn(Blackhole blackhole) {
+		this.endTurn.run(blackhole);
+	}
+}
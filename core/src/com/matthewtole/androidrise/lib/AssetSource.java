@@ -0,0 +1,18 @@
+package com.matthewtole.androidrise.lib;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Opens the game's bundled assets, such as board layouts, by their path
+ * relative to the assets folder.
+ */
+public interface AssetSource {
+
+	public InputStream open(String path) throws IOException;
+
+	/**
+	 * The names of the files in a folder, without the folder's path.
+	 */
+	public String[] list(String path) throws IOException;
+}
@@ -0,0 +1,33 @@
+package com.matthewtole.androidrise.lib;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads assets from a folder on disk, for running the engine outside of
+ * Android.
+ */
+public class FileAssetSource implements AssetSource {
+
+	private File root;
+
+	public FileAssetSource(File root) {
+		this.root = root;
+	}
+
+	public InputStream open(String path) throws IOException {
+		return new FileInputStream(new File(this.root, path));
+	}
+
+	public String[] list(String path) throws IOException {
+		File folder = new File(this.root, path);
+		String[] names = folder.list();
+		if (names == null) {
+			throw new FileNotFoundException(folder.getPath());
+		}
+		return names;
+	}
+}
@@ -0,0 +1,14 @@
+package com.matthewtole.androidrise.lib;
+
+/**
+ * Size of a hex tile in screen pixels, used to convert between grid and
+ * screen locations.
+ */
+public class Geometry {
+
+	public static final int TILE_HEIGHT = 100;
+	public static final int TILE_WIDTH = 88;
+	public static final int TILE_HEIGHT_HALF = TILE_HEIGHT / 2;
+	public static final int TILE_HEIGHT_THREEQUARTERS = (TILE_HEIGHT / 4) * 3;
+	public static final int TILE_WIDTH_HALF = TILE_WIDTH / 2;
+}
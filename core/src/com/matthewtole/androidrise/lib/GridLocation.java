@@ -1,7 +1,5 @@
 package com.matthewtole.androidrise.lib;
 
-import com.matthewtole.androidrise.game.Common;
-
 public class GridLocation implements Location {
 
 	@SuppressWarnings("unused")
@@ -32,10 +30,10 @@ public class GridLocation implements Location {
 		int x = this.getGridX();
 		int y = this.getGridY();
 
-		int wX = Common.TILE_WIDTH * x;
-		int wY = Common.TILE_HEIGHT_THREEQUARTERS * y;
+		int wX = Geometry.TILE_WIDTH * x;
+		int wY = Geometry.TILE_HEIGHT_THREEQUARTERS * y;
 		if (Math.abs(y % 2) == 1) {
-			wX += Common.TILE_WIDTH_HALF;
+			wX += Geometry.TILE_WIDTH_HALF;
 		}
 
 		return new ScreenLocation(wX, wY);
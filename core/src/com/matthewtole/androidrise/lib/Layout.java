@@ -0,0 +1,121 @@
+package com.matthewtole.androidrise.lib;
+
+/**
+ * A starting board, as read from a file in assets/layouts. Each cell is
+ * packed into two bits, row by row.
+ *
+ * In the text form every row is a line of cells, where _ is empty, O is a
+ * tile, and R and B are tiles with a red or blue worker on them. Commas
+ * between cells and the dots that start every other row are only there to
+ * make the files readable and are skipped, as is any other whitespace.
+ */
+public class Layout {
+
+	public static final int BLANK = 0;
+	public static final int TILE = 1;
+	public static final int RED_WORKER = 2;
+	public static final int BLUE_WORKER = 3;
+
+	private final String name;
+	private final int width;
+	private final int height;
+	private final byte[] cells;
+
+	private Layout(String name, int width, int height, byte[] cells) {
+		this.name = name;
+		this.width = width;
+		this.height = height;
+		this.cells = cells;
+	}
+
+	/**
+	 * Parses the text of a layout file in one pass over its first length
+	 * bytes. Rows shorter than the longest one are padded with empty cells.
+	 */
+	public static Layout parse(String name, byte[] text, int length) {
+		// At most one cell per byte, one byte per cell until they are packed.
+		byte[] codes = new byte[length];
+		int[] rowEnds = new int[16];
+		int rows = 0;
+		int count = 0;
+		int rowStart = 0;
+		int width = 0;
+		for (int i = 0; i <= length; i += 1) {
+			int c = i < length ? text[i] : '\n';
+			if (c == '\n') {
+				if (count > rowStart) {
+					if (rows == rowEnds.length) {
+						int[] grown = new int[rows * 2];
+						System.arraycopy(rowEnds, 0, grown, 0, rows);
+						rowEnds = grown;
+					}
+					rowEnds[rows] = count;
+					rows += 1;
+					width = Math.max(width, count - rowStart);
+					rowStart = count;
+				}
+			} else if (c == 'O') {
+				codes[count++] = TILE;
+			} else if (c == 'R') {
+				codes[count++] = RED_WORKER;
+			} else if (c == 'B') {
+				codes[count++] = BLUE_WORKER;
+			} else if (c == '_') {
+				codes[count++] = BLANK;
+			}
+		}
+
+		byte[] cells = new byte[(width * rows + 3) / 4];
+		rowStart = 0;
+		for (int y = 0; y < rows; y += 1) {
+			for (int x = 0; x < rowEnds[y] - rowStart; x += 1) {
+				int index = y * width + x;
+				cells[index >> 2] |= codes[rowStart + x] << ((index & 3) << 1);
+			}
+			rowStart = rowEnds[y];
+		}
+		return new Layout(name, width, rows, cells);
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public int getWidth() {
+		return this.width;
+	}
+
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * What starts in column x of row y: BLANK, TILE, RED_WORKER or
+	 * BLUE_WORKER.
+	 */
+	public int get(int x, int y) {
+		int index = y * this.width + x;
+		return (this.cells[index >> 2] >> ((index & 3) << 1)) & 3;
+	}
+
+	/**
+	 * The board column the layout's first column is placed in. Layouts are
+	 * centred on the board, moved by a cell if needed so that they start on
+	 * an even column and row, which keeps the rows' stagger the same as in
+	 * the file.
+	 */
+	public int getLeft() {
+		return even(RiseBoard.SIZE / 2 - this.width / 2);
+	}
+
+	/**
+	 * The board row the layout's first row is placed in.
+	 */
+	public int getTop() {
+		return even(RiseBoard.SIZE / 2 - this.height / 2);
+	}
+
+	private static int even(int n) {
+		return n % 2 == 1 ? n - 1 : n;
+	}
+}
@@ -0,0 +1,97 @@
+package com.matthewtole.androidrise.lib;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The layouts in an asset source's layouts folder. The folder is listed once,
+ * so the names can be shown without reading any of the files, and each
+ * layout is read and parsed the first time it is asked for and kept in its
+ * packed form after that. Safe to use from any thread.
+ */
+public class LayoutStore {
+
+	private static final String FOLDER = "layouts";
+	private static final String EXTENSION = ".txt";
+
+	private final AssetSource assets;
+	private final HashMap<String, Layout> layouts = new HashMap<String, Layout>();
+	private String[] names;
+
+	public LayoutStore(AssetSource assets) {
+		this.assets = assets;
+	}
+
+	/**
+	 * The name of every layout, in alphabetical order.
+	 */
+	public synchronized String[] getNames() throws IOException {
+		if (this.names == null) {
+			String[] files = this.assets.list(FOLDER);
+			int count = 0;
+			for (int i = 0; i < files.length; i += 1) {
+				if (files[i].endsWith(EXTENSION)) {
+					files[count] = files[i].substring(0, files[i].length()
+							- EXTENSION.length());
+					count += 1;
+				}
+			}
+			this.names = new String[count];
+			System.arraycopy(files, 0, this.names, 0, count);
+			Arrays.sort(this.names);
+		}
+		return this.names.clone();
+	}
+
+	/**
+	 * The layout with the given name, reading it if this is the first time
+	 * it has been asked for. Throws FileNotFoundException if there is no
+	 * such layout.
+	 */
+	public Layout get(String name) throws IOException {
+		synchronized (this) {
+			Layout layout = this.layouts.get(name);
+			if (layout != null) {
+				return layout;
+			}
+		}
+		// Read outside the lock so other layouts can be had meanwhile. Two
+		// threads reading the same layout at once just parse it twice.
+		Layout layout = this.read(name);
+		synchronized (this) {
+			this.layouts.put(name, layout);
+		}
+		return layout;
+	}
+
+	private Layout read(String name) throws IOException {
+		InputStream stream;
+		try {
+			stream = this.assets.open(FOLDER + "/" + name + EXTENSION);
+		} catch (FileNotFoundException e) {
+			throw new FileNotFoundException("No layout named " + name);
+		}
+		try {
+			byte[] text = new byte[Math.max(stream.available(), 256)];
+			int length = 0;
+			while (true) {
+				if (length == text.length) {
+					byte[] grown = new byte[text.length * 2];
+					System.arraycopy(text, 0, grown, 0, length);
+					text = grown;
+				}
+				int read = stream.read(text, length, text.length - length);
+				if (read < 0) {
+					break;
+				}
+				length += read;
+			}
+			return Layout.parse(name, text, length);
+		} finally {
+			stream.close();
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.matthewtole.androidrise.lib;
+
+/**
+ * Logging for code that has to run without Android. Calls go to whichever
+ * Logger has been installed with setLogger.
+ */
+public class Log {
+
+	private static volatile Logger logger = new Logger() {
+		public void debug(String tag, String message) {
+			System.err.println(tag + ": " + message);
+		}
+
+		public void error(String tag, String message) {
+			System.err.println(tag + ": " + message);
+		}
+	};
+
+	private Log() {
+	}
+
+	/**
+	 * Sends all further log messages to the given logger, or discards them
+	 * if it is null.
+	 */
+	public static void setLogger(Logger logger) {
+		Log.logger = logger;
+	}
+
+	public static void d(String tag, String message) {
+		Logger logger = Log.logger;
+		if (logger != null) {
+			logger.debug(tag, message);
+		}
+	}
+
+	public static void e(String tag, String message) {
+		Logger logger = Log.logger;
+		if (logger != null) {
+			logger.error(tag, message);
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package com.matthewtole.androidrise.lib;
+
+/**
+ * Where log messages from the rules engine end up. The Android app sends
+ * them to logcat; anywhere else they go to standard error by default.
+ */
+public interface Logger {
+
+	public void debug(String tag, String message);
+
+	public void error(String tag, String message);
+}
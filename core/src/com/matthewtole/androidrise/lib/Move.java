@@ -0,0 +1,140 @@
+package com.matthewtole.androidrise.lib;
+
+/**
+ * A complete Rise action packed into a long, for use with RiseGame.makeMove.
+ * 
+ * The lowest four bits hold the type and each cell involved takes sixteen bits
+ * after that: the target cell, then the worker that moves or is sacrificed
+ * first, then the jumped worker or the second sacrifice.
+ */
+public final class Move {
+
+	public static final long NONE = 0;
+
+	public static final int TILE = 1;
+	public static final int WORKER = 2;
+	public static final int DEMOLISH = 3;
+	public static final int MOVE = 4;
+	public static final int JUMP = 5;
+	public static final int SACRIFICE_ADD = 6;
+	public static final int SACRIFICE_REMOVE = 7;
+
+	public static final int MAX_CLICKS = 3;
+
+	private static final int TYPE_BITS = 4;
+	private static final int CELL_BITS = 16;
+	private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+
+	private Move() {
+	}
+
+	public static long tile(int cell) {
+		return make(TILE, cell, 0, 0);
+	}
+
+	public static long worker(int cell) {
+		return make(WORKER, cell, 0, 0);
+	}
+
+	public static long demolish(int cell) {
+		return make(DEMOLISH, cell, 0, 0);
+	}
+
+	public static long move(int from, int to) {
+		return make(MOVE, to, from, 0);
+	}
+
+	public static long jump(int from, int to, int jumped) {
+		return make(JUMP, to, from, jumped);
+	}
+
+	public static long sacrificeAdd(int first, int second, int cell) {
+		return make(SACRIFICE_ADD, cell, first, second);
+	}
+
+	public static long sacrificeRemove(int first, int second, int cell) {
+		return make(SACRIFICE_REMOVE, cell, first, second);
+	}
+
+	public static int type(long move) {
+		return (int) (move & ((1 << TYPE_BITS) - 1));
+	}
+
+	/**
+	 * The cell that was touched to finish the action.
+	 */
+	public static int cell(long move) {
+		return (int) ((move >>> TYPE_BITS) & CELL_MASK);
+	}
+
+	/**
+	 * The worker that moves or jumps, or the first sacrificed worker.
+	 */
+	public static int from(long move) {
+		return (int) ((move >>> (TYPE_BITS + CELL_BITS)) & CELL_MASK);
+	}
+
+	/**
+	 * The worker that is jumped, or the second sacrificed worker.
+	 */
+	public static int other(long move) {
+		return (int) ((move >>> (TYPE_BITS + CELL_BITS * 2)) & CELL_MASK);
+	}
+
+	/**
+	 * Fills cells with the cells a player touches to make the move, in order,
+	 * and returns how many there are.
+	 */
+	public static int clicks(long move, int[] cells) {
+		int count = 0;
+		switch (type(move)) {
+		case MOVE:
+		case JUMP:
+			cells[count++] = from(move);
+			break;
+		case SACRIFICE_ADD:
+		case SACRIFICE_REMOVE:
+			cells[count++] = from(move);
+			cells[count++] = other(move);
+			break;
+		}
+		cells[count++] = cell(move);
+		return count;
+	}
+
+	public static String toString(long move) {
+		switch (type(move)) {
+		case TILE:
+			return "Tile " + cellString(cell(move));
+		case WORKER:
+			return "Worker " + cellString(cell(move));
+		case DEMOLISH:
+			return "Demolish " + cellString(cell(move));
+		case MOVE:
+			return "Move " + cellString(from(move)) + " to "
+					+ cellString(cell(move));
+		case JUMP:
+			return "Jump " + cellString(from(move)) + " over "
+					+ cellString(other(move)) + " to " + cellString(cell(move));
+		case SACRIFICE_ADD:
+			return "Sacrifice " + cellString(from(move)) + " and "
+					+ cellString(other(move)) + " to add "
+					+ cellString(cell(move));
+		case SACRIFICE_REMOVE:
+			return "Sacrifice " + cellString(from(move)) + " and "
+					+ cellString(other(move)) + " to remove "
+					+ cellString(cell(move));
+		}
+		return "None";
+	}
+
+	private static long make(int type, int cell, int from, int other) {
+		return type | ((long) cell << TYPE_BITS)
+				| ((long) from << (TYPE_BITS + CELL_BITS))
+				| ((long) other << (TYPE_BITS + CELL_BITS * 2));
+	}
+
+	private static String cellString(int cell) {
+		return Utils.coordString(RiseBoard.cellX(cell), RiseBoard.cellY(cell));
+	}
+}
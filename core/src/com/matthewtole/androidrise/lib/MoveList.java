@@ -0,0 +1,55 @@
+package com.matthewtole.androidrise.lib;
+
+/**
+ * A reusable, growable buffer of moves packed as longs (see Move).
+ */
+public class MoveList {
+
+	private long[] moves;
+	private int size;
+
+	public MoveList() {
+		this(256);
+	}
+
+	public MoveList(int capacity) {
+		this.moves = new long[capacity];
+		this.size = 0;
+	}
+
+	public void add(long move) {
+		if (this.size == this.moves.length) {
+			long[] grown = new long[this.moves.length * 2];
+			System.arraycopy(this.moves, 0, grown, 0, this.size);
+			this.moves = grown;
+		}
+		this.moves[this.size] = move;
+		this.size += 1;
+	}
+
+	public long get(int index) {
+		return this.moves[index];
+	}
+
+	public void set(int index, long move) {
+		this.moves[index] = move;
+	}
+
+	public void swap(int first, int second) {
+		long tmp = this.moves[first];
+		this.moves[first] = this.moves[second];
+		this.moves[second] = tmp;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public void clear() {
+		this.size = 0;
+	}
+}
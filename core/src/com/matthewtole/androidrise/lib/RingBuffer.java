@@ -0,0 +1,119 @@
+package com.matthewtole.androidrise.lib;
+
+import java.util.Collection;
+
+/**
+ * A bounded FIFO queue backed by an array, for handing objects from one
+ * thread to another without locking. Only one thread may add to it and only
+ * one thread may take from it.
+ * 
+ * The producer stores an element before advancing the volatile tail, and the
+ * consumer clears a slot before advancing the volatile head, so each side
+ * sees the other's writes in order. Each side keeps a cached copy of the
+ * other's index and only re-reads it when the queue looks full or empty.
+ */
+public class RingBuffer<E> {
+
+	private final Object[] elements;
+	private final int mask;
+
+	// Next slot to take from; written only by the consumer.
+	private volatile long head = 0;
+	// Next slot to add to; written only by the producer.
+	private volatile long tail = 0;
+
+	private long cachedHead = 0;
+	private long cachedTail = 0;
+
+	/**
+	 * Creates a queue holding at least capacity elements. The capacity is
+	 * rounded up to a power of two.
+	 */
+	public RingBuffer(int capacity) {
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.elements = new Object[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Adds an element, or returns false if the queue is full. Producer only.
+	 */
+	public boolean offer(E element) {
+		long tail = this.tail;
+		if (tail - this.cachedHead >= this.elements.length) {
+			this.cachedHead = this.head;
+			if (tail - this.cachedHead >= this.elements.length) {
+				return false;
+			}
+		}
+		this.elements[(int) tail & this.mask] = element;
+		this.tail = tail + 1;
+		return true;
+	}
+
+	/**
+	 * Takes the oldest element, or returns null if the queue is empty.
+	 * Consumer only.
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		long head = this.head;
+		if (head >= this.cachedTail) {
+			this.cachedTail = this.tail;
+			if (head >= this.cachedTail) {
+				return null;
+			}
+		}
+		int index = (int) head & this.mask;
+		E element = (E) this.elements[index];
+		this.elements[index] = null;
+		this.head = head + 1;
+		return element;
+	}
+
+	/**
+	 * Takes every element currently in the queue, oldest first, and adds them
+	 * to the collection. Returns how many were taken. Consumer only.
+	 */
+	@SuppressWarnings("unchecked")
+	public int drainTo(Collection<? super E> collection) {
+		long head = this.head;
+		long tail = this.tail;
+		this.cachedTail = tail;
+		for (long i = head; i < tail; i += 1) {
+			int index = (int) i & this.mask;
+			collection.add((E) this.elements[index]);
+			this.elements[index] = null;
+		}
+		this.head = tail;
+		return (int) (tail - head);
+	}
+
+	/**
+	 * Throws away every element in the queue. Consumer only.
+	 */
+	public void clear() {
+		long head = this.head;
+		long tail = this.tail;
+		this.cachedTail = tail;
+		for (long i = head; i < tail; i += 1) {
+			this.elements[(int) i & this.mask] = null;
+		}
+		this.head = tail;
+	}
+
+	public boolean isEmpty() {
+		return this.head >= this.tail;
+	}
+
+	public int size() {
+		return (int) (this.tail - this.head);
+	}
+
+	public int capacity() {
+		return this.elements.length;
+	}
+}
@@ -0,0 +1,561 @@
+package com.matthewtole.androidrise.lib;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
+
+/**
+ * Compact bitboard representation of the Rise board.
+ *
+ * Cells are addressed by a flat index (x * SIZE + y), so walking the indexes
+ * in ascending order visits the board in the same order as the old nested x/y
+ * loops. Since SIZE is even, the parity of a cell index is the parity of its
+ * row, which is what decides the shape of its hex neighbourhood.
+ *
+ * The set of cells surrounded by each player's workers is kept up to date as
+ * workers come and go, by re-checking only the ring of cells around the
+ * changed one.
+ *
+ * Every cell also has a small contents code (blank, tile, worker or tower of a
+ * given height) which feeds the Zobrist hash and lets changes be journalled
+ * and rolled back.
+ *
+ * Tower heights are kept as two more bitboards, one per bit of the height, so
+ * all of a board's state is bitboards. The board remembers the range of words
+ * that anything has been set in, and copying or clearing only touches that
+ * range, so those cost what the occupied part of the board does rather than
+ * the whole grid.
+ */
+public class RiseBoard {
+
+	public static final int SIZE = 60;
+	public static final int CELLS = SIZE * SIZE;
+	public static final int WORDS = (CELLS + 63) >>> 6;
+	public static final int OFF_BOARD = -1;
+
+	public static final int BLANK = 0;
+	public static final int TILE = 1;
+	private static final int WORKER = 2;
+	private static final int TOWER = 4;
+	public static final int CONTENT_TYPES = 12;
+
+	private static final GamePlayer[] PLAYERS_BY_INDEX = GamePlayer.values();
+	private static final int PLAYERS = 2;
+	private static final int MAX_TOWER_HEIGHT = 3;
+	private static final int HEIGHT_BITS = 2;
+
+	// Neighbour offsets in the same order as RiseGame has always used them:
+	// left, upper left, upper right, right, lower right, lower left.
+	private static final int[] EVEN_DX = { -1, -1, 0, 1, 0, -1 };
+	private static final int[] ODD_DX = { -1, 0, 1, 1, 1, 0 };
+	private static final int[] DY = { 0, -1, -1, 0, 1, 1 };
+
+	// NEIGHBOURS[cell * 6 + d] is the cell next to cell in direction d, or
+	// OFF_BOARD.
+	private static final int[] NEIGHBOURS = new int[CELLS * 6];
+
+	static {
+		for (int x = 0; x < SIZE; x += 1) {
+			for (int y = 0; y < SIZE; y += 1) {
+				int cell = cell(x, y);
+				for (int d = 0; d < 6; d += 1) {
+					int nx = x + ((y & 1) == 1 ? ODD_DX[d] : EVEN_DX[d]);
+					int ny = y + DY[d];
+					NEIGHBOURS[cell * 6 + d] = isValid(nx, ny) ? cell(nx, ny)
+							: OFF_BOARD;
+				}
+			}
+		}
+	}
+
+	private long[] tiles;
+	private long[][] workers;
+	private long[][] towers;
+	private long[][] heights;
+	private long[][] surrounded;
+
+	// Every set bit is in a word from firstWord up to but not including
+	// endWord.
+	private int firstWord = WORDS;
+	private int endWord = 0;
+
+	private long hash;
+	private int[] journal;
+	private int journalSize;
+	private boolean journaling;
+
+	public RiseBoard() {
+		this.tiles = new long[WORDS];
+		this.workers = new long[PLAYERS][WORDS];
+		this.towers = new long[PLAYERS][WORDS];
+		this.heights = new long[HEIGHT_BITS][WORDS];
+		this.surrounded = new long[PLAYERS][WORDS];
+		this.journal = new int[64];
+	}
+
+	public RiseBoard(RiseBoard other) {
+		this();
+		this.copyFrom(other);
+	}
+
+	/**
+	 * Makes this board a copy of another without allocating. The journal is
+	 * emptied.
+	 */
+	public void copyFrom(RiseBoard other) {
+		// Words outside both boards' ranges are zero in both already.
+		int from = Math.min(this.firstWord, other.firstWord);
+		int to = Math.max(this.endWord, other.endWord);
+		if (from < to) {
+			int length = to - from;
+			System.arraycopy(other.tiles, from, this.tiles, from, length);
+			for (int p = 0; p < PLAYERS; p += 1) {
+				System.arraycopy(other.workers[p], from, this.workers[p], from,
+						length);
+				System.arraycopy(other.towers[p], from, this.towers[p], from,
+						length);
+				System.arraycopy(other.surrounded[p], from,
+						this.surrounded[p], from, length);
+			}
+			for (int b = 0; b < HEIGHT_BITS; b += 1) {
+				System.arraycopy(other.heights[b], from, this.heights[b], from,
+						length);
+			}
+		}
+		this.firstWord = other.firstWord;
+		this.endWord = other.endWord;
+		this.hash = other.hash;
+		this.journalSize = 0;
+	}
+
+	public static int cell(int x, int y) {
+		return x * SIZE + y;
+	}
+
+	public static int cellX(int cell) {
+		return cell / SIZE;
+	}
+
+	public static int cellY(int cell) {
+		return cell % SIZE;
+	}
+
+	public static boolean isValid(int x, int y) {
+		return x >= 0 && y >= 0 && x < SIZE && y < SIZE;
+	}
+
+	/**
+	 * Returns the cell next to the given one in direction d (0 to 5), or
+	 * OFF_BOARD.
+	 */
+	public static int neighbour(int cell, int d) {
+		return NEIGHBOURS[cell * 6 + d];
+	}
+
+	/**
+	 * Returns true if any of the cell's neighbours is set in bits.
+	 */
+	public static boolean anyNeighbour(int cell, long[] bits) {
+		for (int n = cell * 6, end = n + 6; n < end; n += 1) {
+			int around = NEIGHBOURS[n];
+			if (around != OFF_BOARD && get(bits, around)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if all six of the cell's neighbours are set in bits.
+	 */
+	public static boolean allNeighbours(int cell, long[] bits) {
+		for (int n = cell * 6, end = n + 6; n < end; n += 1) {
+			int around = NEIGHBOURS[n];
+			if (around == OFF_BOARD || !get(bits, around)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static boolean areNeighbours(int cell1, int cell2) {
+		for (int n = cell1 * 6, end = n + 6; n < end; n += 1) {
+			if (NEIGHBOURS[n] == cell2) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void clear() {
+		int from = this.firstWord;
+		int to = this.endWord;
+		clear(this.tiles, from, to);
+		for (int p = 0; p < PLAYERS; p += 1) {
+			clear(this.workers[p], from, to);
+			clear(this.towers[p], from, to);
+			clear(this.surrounded[p], from, to);
+		}
+		for (int b = 0; b < HEIGHT_BITS; b += 1) {
+			clear(this.heights[b], from, to);
+		}
+		this.firstWord = WORDS;
+		this.endWord = 0;
+		this.hash = 0;
+		this.journalSize = 0;
+	}
+
+	/**
+	 * Returns the first cell that anything could be set in, for starting
+	 * loops over the bitboards with nextSetBit.
+	 */
+	public int firstCell() {
+		return this.firstWord == WORDS ? 0 : this.firstWord << 6;
+	}
+
+	/**
+	 * Writes the contents code of every cell that is not blank, preceded by
+	 * how many there are.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		int count = 0;
+		for (int w = this.firstWord; w < this.endWord; w += 1) {
+			count += Long.bitCount(this.tiles[w]);
+		}
+		out.writeShort(count);
+		for (int cell = nextSetBit(this.tiles, this.firstCell()); cell >= 0; cell = nextSetBit(
+				this.tiles, cell + 1)) {
+			out.writeShort(cell);
+			out.writeByte(this.contents(cell));
+		}
+	}
+
+	/**
+	 * Clears the board and fills it from what writeTo wrote. The hash and
+	 * the surrounded cells are worked out again as the cells are filled.
+	 */
+	public void readFrom(DataInput in) throws IOException {
+		this.clear();
+		int count = in.readUnsignedShort();
+		for (int i = 0; i < count; i += 1) {
+			int cell = in.readUnsignedShort();
+			int contents = in.readUnsignedByte();
+			if (cell >= CELLS || contents == BLANK
+					|| contents >= CONTENT_TYPES) {
+				throw new IOException("Bad cell " + cell + " contents "
+						+ contents);
+			}
+			this.write(cell, contents);
+		}
+	}
+
+	public long getHash() {
+		return this.hash;
+	}
+
+	/**
+	 * While journaling is on, the previous contents of every changed cell are
+	 * recorded so that they can be put back with rollback.
+	 */
+	public void setJournaling(boolean journaling) {
+		this.journaling = journaling;
+	}
+
+	public int getJournalSize() {
+		return this.journalSize;
+	}
+
+	/**
+	 * Undoes journalled changes, newest first, until the journal is back to
+	 * the given size.
+	 */
+	public void rollback(int size) {
+		boolean wasJournaling = this.journaling;
+		this.journaling = false;
+		while (this.journalSize > size) {
+			this.journalSize -= 1;
+			int entry = this.journal[this.journalSize];
+			this.write(entry >>> 4, entry & 15);
+		}
+		this.journaling = wasJournaling;
+	}
+
+	public boolean isBlank(int cell) {
+		return !get(this.tiles, cell);
+	}
+
+	public boolean isNotBlank(int cell) {
+		return get(this.tiles, cell);
+	}
+
+	/**
+	 * A tile with nothing standing on it.
+	 */
+	public boolean isTile(int cell) {
+		return get(this.tiles, cell) && !this.isPiece(cell);
+	}
+
+	public boolean isPiece(int cell) {
+		return this.isWorker(cell) || this.isTower(cell);
+	}
+
+	public boolean isWorker(int cell) {
+		return get(this.workers[0], cell) || get(this.workers[1], cell);
+	}
+
+	public boolean isWorker(int cell, GamePlayer player) {
+		return player != GamePlayer.UNKNOWN
+				&& get(this.workers[player.ordinal()], cell);
+	}
+
+	public boolean isTower(int cell) {
+		return get(this.towers[0], cell) || get(this.towers[1], cell);
+	}
+
+	public boolean isTower(int cell, GamePlayer player) {
+		return player != GamePlayer.UNKNOWN
+				&& get(this.towers[player.ordinal()], cell);
+	}
+
+	public GamePlayer pieceColour(int cell) {
+		if (get(this.workers[0], cell) || get(this.towers[0], cell)) {
+			return PLAYERS_BY_INDEX[0];
+		}
+		if (get(this.workers[1], cell) || get(this.towers[1], cell)) {
+			return PLAYERS_BY_INDEX[1];
+		}
+		return GamePlayer.UNKNOWN;
+	}
+
+	public int towerHeight(int cell) {
+		return (get(this.heights[0], cell) ? 1 : 0)
+				| (get(this.heights[1], cell) ? 2 : 0);
+	}
+
+	public void setTile(int cell) {
+		this.write(cell, TILE);
+	}
+
+	public void setWorker(int cell, GamePlayer player) {
+		this.write(cell, WORKER + player.ordinal());
+	}
+
+	public void setTower(int cell, GamePlayer player, int height) {
+		this.write(cell, TOWER + player.ordinal() * 4 + height);
+	}
+
+	public boolean demolishTower(int cell) {
+		if (!this.isTower(cell)) {
+			return false;
+		}
+		int height = this.towerHeight(cell) - 1;
+		if (height <= 0) {
+			this.write(cell, TILE);
+		} else {
+			this.write(cell, this.contents(cell) - 1);
+		}
+		return true;
+	}
+
+	public boolean buildTower(int cell) {
+		if (!this.isTower(cell)) {
+			return false;
+		}
+		if (this.towerHeight(cell) < MAX_TOWER_HEIGHT) {
+			this.write(cell, this.contents(cell) + 1);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the contents code of a cell.
+	 */
+	public int contents(int cell) {
+		if (!get(this.tiles, cell)) {
+			return BLANK;
+		}
+		for (int p = 0; p < PLAYERS; p += 1) {
+			if (get(this.workers[p], cell)) {
+				return WORKER + p;
+			}
+			if (get(this.towers[p], cell)) {
+				return TOWER + p * 4 + this.towerHeight(cell);
+			}
+		}
+		return TILE;
+	}
+
+	private void write(int cell, int contents) {
+		int before = this.contents(cell);
+		if (before == contents) {
+			return;
+		}
+		if (this.journaling) {
+			if (this.journalSize == this.journal.length) {
+				int[] grown = new int[this.journal.length * 2];
+				System.arraycopy(this.journal, 0, grown, 0, this.journalSize);
+				this.journal = grown;
+			}
+			this.journal[this.journalSize] = (cell << 4) | before;
+			this.journalSize += 1;
+		}
+		this.hash ^= Zobrist.contents(before, cell)
+				^ Zobrist.contents(contents, cell);
+		this.include(cell);
+
+		if (before >= TOWER) {
+			unset(this.towers[(before - TOWER) / 4], cell);
+			this.setHeight(cell, 0);
+		} else if (before >= WORKER) {
+			unset(this.workers[before - WORKER], cell);
+			this.updateSurrounded(cell, before - WORKER);
+		}
+
+		if (contents == BLANK) {
+			unset(this.tiles, cell);
+		} else {
+			set(this.tiles, cell);
+		}
+		if (contents >= TOWER) {
+			set(this.towers[(contents - TOWER) / 4], cell);
+			this.setHeight(cell, (contents - TOWER) % 4);
+		} else if (contents >= WORKER) {
+			set(this.workers[contents - WORKER], cell);
+			this.updateSurrounded(cell, contents - WORKER);
+		}
+	}
+
+	private void setHeight(int cell, int height) {
+		for (int b = 0; b < HEIGHT_BITS; b += 1) {
+			if ((height & (1 << b)) != 0) {
+				set(this.heights[b], cell);
+			} else {
+				unset(this.heights[b], cell);
+			}
+		}
+	}
+
+	/**
+	 * Widens the used range of words to cover the cell and the ring around
+	 * it, which is as far as a change to it can set bits.
+	 */
+	private void include(int cell) {
+		int from = Math.max(cell - SIZE - 1, 0) >>> 6;
+		int to = (Math.min(cell + SIZE + 1, CELLS - 1) >>> 6) + 1;
+		if (from < this.firstWord) {
+			this.firstWord = from;
+		}
+		if (to > this.endWord) {
+			this.endWord = to;
+		}
+	}
+
+	// The bitboards returned below are live and must not be modified.
+
+	/**
+	 * Returns every cell that is not blank.
+	 */
+	public long[] getTiles() {
+		return this.tiles;
+	}
+
+	public long[] getWorkers(GamePlayer player) {
+		return this.workers[player.ordinal()];
+	}
+
+	public long[] getTowers(GamePlayer player) {
+		return this.towers[player.ordinal()];
+	}
+
+	/**
+	 * Returns every cell whose six neighbours all hold one of the player's
+	 * workers.
+	 */
+	public long[] surrounded(GamePlayer player) {
+		return this.surrounded[player.ordinal()];
+	}
+
+	/**
+	 * A worker was added to or removed from cell, so re-check the ring of
+	 * cells around it.
+	 */
+	private void updateSurrounded(int cell, int player) {
+		for (int n = cell * 6, end = n + 6; n < end; n += 1) {
+			int around = NEIGHBOURS[n];
+			if (around == OFF_BOARD) {
+				continue;
+			}
+			if (allNeighbours(around, this.workers[player])) {
+				set(this.surrounded[player], around);
+			} else {
+				unset(this.surrounded[player], around);
+			}
+		}
+	}
+
+	public boolean hasNeighbour(int cell) {
+		return anyNeighbour(cell, this.tiles);
+	}
+
+	public boolean hasNeighbourWorker(int cell, GamePlayer player) {
+		return anyNeighbour(cell, this.workers[player.ordinal()]);
+	}
+
+	public RiseTile toTile(int cell) {
+		RiseTile tile = new RiseTile(cellX(cell), cellY(cell));
+		if (this.isWorker(cell)) {
+			tile.setWorker(this.pieceColour(cell));
+		} else if (this.isTower(cell)) {
+			tile.setTower(this.pieceColour(cell), this.towerHeight(cell));
+		} else if (this.isTile(cell)) {
+			tile.setTile();
+		}
+		return tile;
+	}
+
+	/**
+	 * Returns the index of the first set bit at or after from, or -1.
+	 */
+	public static int nextSetBit(long[] bits, int from) {
+		int w = from >>> 6;
+		if (w >= bits.length) {
+			return -1;
+		}
+		long word = bits[w] & (-1L << (from & 63));
+		while (true) {
+			if (word != 0) {
+				return (w << 6) + Long.numberOfTrailingZeros(word);
+			}
+			w += 1;
+			if (w >= bits.length) {
+				return -1;
+			}
+			word = bits[w];
+		}
+	}
+
+	public static boolean get(long[] bits, int cell) {
+		return (bits[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	public static void set(long[] bits, int cell) {
+		bits[cell >>> 6] |= 1L << cell;
+	}
+
+	public static void unset(long[] bits, int cell) {
+		bits[cell >>> 6] &= ~(1L << cell);
+	}
+
+	public static void clear(long[] bits) {
+		clear(bits, 0, bits.length);
+	}
+
+	public static void clear(long[] bits, int fromWord, int toWord) {
+		for (int w = fromWord; w < toWord; w += 1) {
+			bits[w] = 0;
+		}
+	}
+}
@@ -0,0 +1,1087 @@
+package com.matthewtole.androidrise.lib;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumMap;
+
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
+import com.matthewtole.androidrise.lib.enums.TurnState;
+import com.matthewtole.androidrise.lib.enums.UpdateType;
+
+public class RiseGame {
+
+	private static final String TAG = RiseGame.class.getSimpleName();
+
+	private static final int TILE_COUNT = 60;
+	private static final int WORKER_COUNT = 30;
+	private static final int NO_CELL = -1;
+
+	// Each frame of the make/unmake stack holds the journal sizes followed by
+	// every scalar that a move can change.
+	private static final int FRAME_SIZE = 13;
+
+	// Room for the updates from many actions, in case the game thread falls
+	// behind the touches. An action makes at most a dozen or so updates and
+	// the game thread takes them all every frame, so this only fills up if
+	// the game thread stops taking them while the game goes on.
+	private static final int UPDATE_CAPACITY = 1024;
+
+	// Bumped whenever the layout of what save writes changes.
+	private static final int SAVE_VERSION = 1;
+
+	private static final GamePlayer[] PLAYERS = GamePlayer.values();
+	private static final TurnState[] TURN_STATES = TurnState.values();
+
+	private RiseBoard board;
+	private GamePlayer turn = GamePlayer.UNKNOWN;
+	private TurnState turnState;
+	private int moveCounter;
+
+	private EnumMap<GamePlayer, Integer> availableWorkers;
+	private EnumMap<GamePlayer, Integer> towerCounts;
+
+	private int availableTiles;
+	private int selectedTile = NO_CELL;
+	private int[] sacrifices;
+
+	private long[] towersProcessed;
+	private long processedHash;
+
+	private int[] frames;
+	private int plies;
+	private int[] processedJournal;
+	private int processedJournalSize;
+	private boolean searching = false;
+
+	private long[] candidates;
+
+	// Filled by doAction on the UI thread and read by the game thread.
+	private RingBuffer<GameUpdate> updates;
+	private String updateMessage = "";
+
+	public RiseGame() {
+
+		this.updates = new RingBuffer<GameUpdate>(UPDATE_CAPACITY);
+
+		this.board = new RiseBoard();
+		this.sacrifices = new int[] { NO_CELL, NO_CELL };
+		this.towersProcessed = new long[RiseBoard.WORDS];
+		this.frames = new int[FRAME_SIZE * 16];
+		this.processedJournal = new int[64];
+		this.candidates = new long[RiseBoard.WORDS];
+
+		this.availableWorkers = new EnumMap<GamePlayer, Integer>(
+				GamePlayer.class);
+		this.towerCounts = new EnumMap<GamePlayer, Integer>(GamePlayer.class);
+	}
+
+	/**
+	 * Copies the position of another game, with an empty update queue, so that
+	 * it can be searched on another thread.
+	 */
+	public RiseGame(RiseGame other) {
+		this();
+		this.copyFrom(other);
+	}
+
+	/**
+	 * Puts this game into the same position as another without allocating.
+	 * Any queued updates and unmade moves are discarded, so no other thread
+	 * may be reading updates at the time.
+	 */
+	public void copyFrom(RiseGame other) {
+
+		this.updates.clear();
+
+		this.board.copyFrom(other.board);
+		this.turn = other.turn;
+		this.turnState = other.turnState;
+		this.moveCounter = other.moveCounter;
+		this.availableWorkers.putAll(other.availableWorkers);
+		this.towerCounts.putAll(other.towerCounts);
+		this.availableTiles = other.availableTiles;
+		this.selectedTile = other.selectedTile;
+		this.sacrifices[0] = other.sacrifices[0];
+		this.sacrifices[1] = other.sacrifices[1];
+		System.arraycopy(other.towersProcessed, 0, this.towersProcessed, 0,
+				RiseBoard.WORDS);
+		this.processedHash = other.processedHash;
+
+		this.plies = 0;
+		this.processedJournalSize = 0;
+		this.searching = false;
+		this.board.setJournaling(false);
+	}
+
+	public void setup(Layout layout) {
+
+		this.turn = GamePlayer.RED;
+		this.availableTiles = TILE_COUNT;
+		this.availableWorkers.put(GamePlayer.RED, WORKER_COUNT - 1);
+		this.availableWorkers.put(GamePlayer.BLUE, WORKER_COUNT - 1);
+		this.towerCounts.put(GamePlayer.RED, 0);
+		this.towerCounts.put(GamePlayer.BLUE, 0);
+		this.sacrifices = new int[] { NO_CELL, NO_CELL };
+		this.selectedTile = NO_CELL;
+		RiseBoard.clear(this.towersProcessed);
+		this.processedHash = 0;
+		this.plies = 0;
+		this.processedJournalSize = 0;
+		this.searching = false;
+		this.moveCounter = 1;
+		this.turnState = TurnState.NOTHING;
+
+		this.board.clear();
+
+		this.buildLayout(layout);
+	}
+
+	/**
+	 * Writes everything needed to carry on with the game: the board, whose
+	 * turn it is and how far through it they are, and what each player has
+	 * left. Queued updates and unmade moves are not included. Takes a few
+	 * hundred bytes.
+	 */
+	public void save(DataOutput out) throws IOException {
+		out.writeByte(SAVE_VERSION);
+		out.writeByte(this.turn.ordinal());
+		out.writeByte(this.turnState.ordinal());
+		out.writeByte(this.moveCounter);
+		out.writeShort(this.availableTiles);
+		out.writeShort(this.availableWorkers.get(GamePlayer.RED));
+		out.writeShort(this.availableWorkers.get(GamePlayer.BLUE));
+		out.writeShort(this.towerCounts.get(GamePlayer.RED));
+		out.writeShort(this.towerCounts.get(GamePlayer.BLUE));
+		out.writeShort(this.selectedTile);
+		out.writeShort(this.sacrifices[0]);
+		out.writeShort(this.sacrifices[1]);
+
+		int processed = 0;
+		for (int w = 0; w < RiseBoard.WORDS; w += 1) {
+			processed += Long.bitCount(this.towersProcessed[w]);
+		}
+		out.writeShort(processed);
+		for (int cell = RiseBoard.nextSetBit(this.towersProcessed, this.board.firstCell()); cell >= 0; cell = RiseBoard
+				.nextSetBit(this.towersProcessed, cell + 1)) {
+			out.writeShort(cell);
+		}
+
+		this.board.writeTo(out);
+	}
+
+	/**
+	 * Puts the game into the position written by save. Throws IOException if
+	 * it was written by a different version or is not a saved game, after
+	 * which the game must be set up again before it is used.
+	 */
+	public void restore(DataInput in) throws IOException {
+		int version = in.readUnsignedByte();
+		if (version != SAVE_VERSION) {
+			throw new IOException("Unknown saved game version " + version);
+		}
+		this.turn = PLAYERS[readIndex(in.readUnsignedByte(), PLAYERS.length)];
+		this.turnState = TURN_STATES[readIndex(in.readUnsignedByte(),
+				TURN_STATES.length)];
+		this.moveCounter = in.readUnsignedByte();
+		if (this.moveCounter < 1 || this.moveCounter > 2) {
+			throw new IOException("Bad moves left " + this.moveCounter);
+		}
+		this.availableTiles = in.readShort();
+		this.availableWorkers.put(GamePlayer.RED, (int) in.readShort());
+		this.availableWorkers.put(GamePlayer.BLUE, (int) in.readShort());
+		this.towerCounts.put(GamePlayer.RED, (int) in.readShort());
+		this.towerCounts.put(GamePlayer.BLUE, (int) in.readShort());
+		this.selectedTile = readCell(in);
+		this.sacrifices[0] = readCell(in);
+		this.sacrifices[1] = readCell(in);
+
+		RiseBoard.clear(this.towersProcessed);
+		this.processedHash = 0;
+		int processed = in.readUnsignedShort();
+		for (int i = 0; i < processed; i += 1) {
+			int cell = readCell(in);
+			if (cell == NO_CELL) {
+				throw new IOException("Bad processed tower");
+			}
+			this.setProcessed(cell, true);
+		}
+
+		this.board.setJournaling(false);
+		this.board.readFrom(in);
+		this.plies = 0;
+		this.processedJournalSize = 0;
+		this.searching = false;
+	}
+
+	private static int readIndex(int index, int length) throws IOException {
+		if (index >= length) {
+			throw new IOException("Bad index " + index);
+		}
+		return index;
+	}
+
+	private static int readCell(DataInput in) throws IOException {
+		int cell = in.readShort();
+		if (cell < NO_CELL || cell >= RiseBoard.CELLS) {
+			throw new IOException("Bad cell " + cell);
+		}
+		return cell;
+	}
+
+	public boolean doAction(int x, int y, GamePlayer player) {
+
+		if (this.turn != player) {
+			this.setMessage("Not your turn!");
+			return false;
+		}
+
+		if (!this.validLocation(x, y)) {
+			this.setMessage("Invalid location");
+			return false;
+		}
+
+		switch (this.turnState) {
+		case NOTHING:
+			return doActionNothing(x, y, player);
+
+		case SELECTED:
+			return doActionSelected(x, y, player);
+
+		case SACRIFICING:
+			return doActionSacrifice(x, y, player);
+		}
+
+		this.setMessage("Nothing to do here");
+		return false;
+	}
+
+	/**
+	 * Ends the turn of a player who has no legal move, so that the game can
+	 * carry on. Returns false, and does nothing, if it is not their turn or
+	 * they have a move they could make.
+	 */
+	public boolean pass(GamePlayer player) {
+		if (this.turn != player || this.turnState != TurnState.NOTHING
+				|| this.generateRegularMoves(new MoveList()) > 0
+				|| this.countSacrifices() > 0) {
+			this.setMessage("You can still move");
+			return false;
+		}
+		this.endTurn();
+		return true;
+	}
+
+	private void setMessage(String message) {
+		this.updateMessage = message;
+	}
+	
+	public String getMessage() {
+		return this.updateMessage;
+	}
+
+	public GamePlayer getCurrentPlayer() {
+		return this.turn;
+	}
+
+	public TurnState getTurnState() {
+		return this.turnState;
+	}
+
+	public int getMovesLeft() {
+		return this.moveCounter;
+	}
+
+	public int getAvailableWorkers(GamePlayer player) {
+		return this.availableWorkers.get(player);
+	}
+
+	/**
+	 * Returns the total number of tower levels the player has built.
+	 */
+	public int getTowerCount(GamePlayer player) {
+		return this.towerCounts.get(player);
+	}
+
+	/**
+	 * Returns the player who still has workers on the board once the other
+	 * has lost them all, or UNKNOWN while the game is still going.
+	 */
+	public GamePlayer getWinner() {
+		if (this.availableWorkers.get(GamePlayer.BLUE) == WORKER_COUNT) {
+			return GamePlayer.RED;
+		}
+		if (this.availableWorkers.get(GamePlayer.RED) == WORKER_COUNT) {
+			return GamePlayer.BLUE;
+		}
+		return GamePlayer.UNKNOWN;
+	}
+
+	/**
+	 * Returns a 64-bit Zobrist hash of the position, including whose turn it
+	 * is, how many moves they have left and which towers have already been
+	 * processed this turn.
+	 */
+	public long getHash() {
+		return this.board.getHash() ^ this.processedHash
+				^ Zobrist.turn(this.turn.ordinal())
+				^ Zobrist.movesLeft(this.moveCounter);
+	}
+
+	/**
+	 * Applies a complete action for the current player without queueing any
+	 * updates. The move is not validated, so it should come from the move
+	 * generator. Every call must be paired with a call to unmakeMove.
+	 */
+	public void makeMove(long move) {
+		this.pushFrame();
+
+		GamePlayer player = this.turn;
+		int cell = Move.cell(move);
+		switch (Move.type(move)) {
+		case Move.TILE:
+			this.addTile(cell, player);
+			break;
+		case Move.WORKER:
+			this.addWorker(cell, player);
+			break;
+		case Move.DEMOLISH:
+			this.removeTower(cell, player);
+			break;
+		case Move.MOVE:
+			this.moveWorker(Move.from(move), cell, player);
+			break;
+		case Move.JUMP:
+			this.jumpWorker(Move.from(move), cell, Move.other(move), player);
+			break;
+		case Move.SACRIFICE_ADD:
+			this.sacrificeToAdd(Move.from(move), Move.other(move), cell,
+					player);
+			break;
+		case Move.SACRIFICE_REMOVE:
+			this.sacrificeToRemove(Move.from(move), Move.other(move), cell,
+					player);
+			break;
+		}
+	}
+
+	/**
+	 * Exactly undoes the most recent call to makeMove.
+	 */
+	public void unmakeMove() {
+		this.plies -= 1;
+		int f = this.plies * FRAME_SIZE;
+
+		this.board.rollback(this.frames[f]);
+		int journalSize = this.frames[f + 1];
+		while (this.processedJournalSize > journalSize) {
+			this.processedJournalSize -= 1;
+			int entry = this.processedJournal[this.processedJournalSize];
+			this.setProcessed(entry >>> 1, (entry & 1) == 1);
+		}
+
+		this.turn = PLAYERS[this.frames[f + 2]];
+		this.turnState = TURN_STATES[this.frames[f + 3]];
+		this.moveCounter = this.frames[f + 4];
+		this.selectedTile = this.frames[f + 5];
+		this.sacrifices[0] = this.frames[f + 6];
+		this.sacrifices[1] = this.frames[f + 7];
+		this.availableTiles = this.frames[f + 8];
+		this.availableWorkers.put(GamePlayer.BLUE, this.frames[f + 9]);
+		this.availableWorkers.put(GamePlayer.RED, this.frames[f + 10]);
+		this.towerCounts.put(GamePlayer.BLUE, this.frames[f + 11]);
+		this.towerCounts.put(GamePlayer.RED, this.frames[f + 12]);
+
+		if (this.plies == 0) {
+			this.searching = false;
+			this.board.setJournaling(false);
+		}
+	}
+
+	/**
+	 * Writes every complete action the current player could make into moves,
+	 * replacing what was there, and returns how many there are. These are
+	 * exactly the actions that doAction would accept, with each pair of
+	 * sacrificed workers listed once.
+	 */
+	public int generateMoves(MoveList moves) {
+		this.generateRegularMoves(moves);
+		this.generateSacrifices(moves);
+		return moves.size();
+	}
+
+	/**
+	 * Like generateMoves but without the sacrifices. Any two of a player's
+	 * workers can be sacrificed for almost any cell, so late in a game
+	 * sacrifices are nearly all of the moves; searches use this with
+	 * countSacrifices and getSacrifice to deal with them on their own.
+	 */
+	public int generateRegularMoves(MoveList moves) {
+		moves.clear();
+		GamePlayer player = this.turn;
+		GamePlayer other = RiseGame.otherPlayer(player);
+		long[] tiles = this.board.getTiles();
+		long[] mine = this.board.getWorkers(player);
+		long[] theirs = this.board.getWorkers(other);
+
+		// ADD TILE
+		if (this.availableTiles > 0) {
+			for (int cell = RiseBoard.nextSetBit(tiles, this.board.firstCell()); cell >= 0; cell = RiseBoard
+					.nextSetBit(tiles, cell + 1)) {
+				for (int d = 0; d < 6; d += 1) {
+					int around = RiseBoard.neighbour(cell, d);
+					if (around != RiseBoard.OFF_BOARD
+							&& this.board.isBlank(around)) {
+						RiseBoard.set(this.candidates, around);
+					}
+				}
+			}
+			this.drainCandidates(moves, Move.TILE);
+		}
+		// ADD WORKER
+		if (this.availableWorkers.get(player) > 0) {
+			for (int cell = RiseBoard.nextSetBit(mine, this.board.firstCell()); cell >= 0; cell = RiseBoard
+					.nextSetBit(mine, cell + 1)) {
+				for (int d = 0; d < 6; d += 1) {
+					int around = RiseBoard.neighbour(cell, d);
+					if (around != RiseBoard.OFF_BOARD
+							&& this.board.isTile(around)) {
+						RiseBoard.set(this.candidates, around);
+					}
+				}
+			}
+			this.drainCandidates(moves, Move.WORKER);
+		}
+		// REMOVE TOWER
+		long[] towers = this.board.getTowers(player);
+		for (int cell = RiseBoard.nextSetBit(towers, this.board.firstCell()); cell >= 0; cell = RiseBoard
+				.nextSetBit(towers, cell + 1)) {
+			moves.add(Move.demolish(cell));
+		}
+		// MOVE AND JUMP WORKER
+		for (int cell = RiseBoard.nextSetBit(mine, this.board.firstCell()); cell >= 0; cell = RiseBoard
+				.nextSetBit(mine, cell + 1)) {
+			for (int d = 0; d < 6; d += 1) {
+				int around = RiseBoard.neighbour(cell, d);
+				if (around == RiseBoard.OFF_BOARD) {
+					continue;
+				}
+				if (this.board.isTile(around)) {
+					moves.add(Move.move(cell, around));
+				} else if (this.board.isWorker(around, other)) {
+					int landing = RiseBoard.neighbour(around, d);
+					if (landing != RiseBoard.OFF_BOARD
+							&& this.board.isTile(landing)) {
+						moves.add(Move.jump(cell, landing, around));
+					}
+				}
+			}
+		}
+		return moves.size();
+	}
+
+	/**
+	 * Adds every sacrifice the current player could make to moves, in the
+	 * order getSacrifice numbers them, and returns how many were added.
+	 */
+	public int generateSacrifices(MoveList moves) {
+		if (!this.canSacrifice()) {
+			return 0;
+		}
+		int before = moves.size();
+		GamePlayer other = RiseGame.otherPlayer(this.turn);
+		long[] tiles = this.board.getTiles();
+		long[] mine = this.board.getWorkers(this.turn);
+		for (int first = RiseBoard.nextSetBit(mine, this.board.firstCell()); first >= 0; first = RiseBoard
+				.nextSetBit(mine, first + 1)) {
+			for (int second = RiseBoard.nextSetBit(mine, first + 1); second >= 0; second = RiseBoard
+					.nextSetBit(mine, second + 1)) {
+				for (int cell = RiseBoard.nextSetBit(tiles, this.board.firstCell()); cell >= 0; cell = RiseBoard
+						.nextSetBit(tiles, cell + 1)) {
+					if (this.board.isTile(cell)) {
+						moves.add(Move.sacrificeAdd(first, second, cell));
+					} else if (this.board.isWorker(cell, other)) {
+						moves.add(Move.sacrificeRemove(first, second, cell));
+					}
+				}
+			}
+		}
+		return moves.size() - before;
+	}
+
+	/**
+	 * How many moves generateSacrifices would add, worked out without
+	 * listing them.
+	 */
+	public int countSacrifices() {
+		if (!this.canSacrifice()) {
+			return 0;
+		}
+		int workers = 0;
+		int targets = 0;
+		long[] mine = this.board.getWorkers(this.turn);
+		for (int w = this.board.firstCell() >>> 6; w < RiseBoard.WORDS; w += 1) {
+			workers += Long.bitCount(mine[w]);
+			targets += Long.bitCount(this.sacrificeTargets(w));
+		}
+		return workers * (workers - 1) / 2 * targets;
+	}
+
+	/**
+	 * The sacrifice at index in the order generateSacrifices lists them, for
+	 * picking sacrifices without listing them all. The index must be less
+	 * than countSacrifices.
+	 */
+	public long getSacrifice(int index) {
+		int from = this.board.firstCell() >>> 6;
+		int targets = 0;
+		for (int w = from; w < RiseBoard.WORDS; w += 1) {
+			targets += Long.bitCount(this.sacrificeTargets(w));
+		}
+		int pair = index / targets;
+		int target = index % targets;
+
+		long[] mine = this.board.getWorkers(this.turn);
+		int first = RiseBoard.nextSetBit(mine, this.board.firstCell());
+		int second = RiseBoard.nextSetBit(mine, first + 1);
+		for (int p = 0; p < pair; p += 1) {
+			second = RiseBoard.nextSetBit(mine, second + 1);
+			if (second < 0) {
+				first = RiseBoard.nextSetBit(mine, first + 1);
+				second = RiseBoard.nextSetBit(mine, first + 1);
+			}
+		}
+
+		int w = from;
+		long word = this.sacrificeTargets(w);
+		while (target >= Long.bitCount(word)) {
+			target -= Long.bitCount(word);
+			w += 1;
+			word = this.sacrificeTargets(w);
+		}
+		for (int t = 0; t < target; t += 1) {
+			word &= word - 1;
+		}
+		int cell = (w << 6) + Long.numberOfTrailingZeros(word);
+		if (this.board.isTile(cell)) {
+			return Move.sacrificeAdd(first, second, cell);
+		}
+		return Move.sacrificeRemove(first, second, cell);
+	}
+
+	private boolean canSacrifice() {
+		return WORKER_COUNT - this.availableWorkers.get(this.turn) > 2;
+	}
+
+	/**
+	 * The cells in a word of the bitboards that a sacrifice can target:
+	 * empty tiles and the other player's workers.
+	 */
+	private long sacrificeTargets(int w) {
+		long[] theirs = this.board.getWorkers(RiseGame.otherPlayer(this.turn));
+		long pieces = this.board.getWorkers(GamePlayer.RED)[w]
+				| this.board.getWorkers(GamePlayer.BLUE)[w]
+				| this.board.getTowers(GamePlayer.RED)[w]
+				| this.board.getTowers(GamePlayer.BLUE)[w];
+		return (this.board.getTiles()[w] & ~pieces) | theirs[w];
+	}
+
+	private void drainCandidates(MoveList moves, int type) {
+		for (int cell = RiseBoard.nextSetBit(this.candidates, this.board.firstCell()); cell >= 0; cell = RiseBoard
+				.nextSetBit(this.candidates, cell + 1)) {
+			RiseBoard.unset(this.candidates, cell);
+			moves.add(type == Move.TILE ? Move.tile(cell) : Move.worker(cell));
+		}
+	}
+
+	private void pushFrame() {
+		if ((this.plies + 1) * FRAME_SIZE > this.frames.length) {
+			int[] grown = new int[this.frames.length * 2];
+			System.arraycopy(this.frames, 0, grown, 0, this.frames.length);
+			this.frames = grown;
+		}
+		int f = this.plies * FRAME_SIZE;
+		this.frames[f] = this.board.getJournalSize();
+		this.frames[f + 1] = this.processedJournalSize;
+		this.frames[f + 2] = this.turn.ordinal();
+		this.frames[f + 3] = this.turnState.ordinal();
+		this.frames[f + 4] = this.moveCounter;
+		this.frames[f + 5] = this.selectedTile;
+		this.frames[f + 6] = this.sacrifices[0];
+		this.frames[f + 7] = this.sacrifices[1];
+		this.frames[f + 8] = this.availableTiles;
+		this.frames[f + 9] = this.availableWorkers.get(GamePlayer.BLUE);
+		this.frames[f + 10] = this.availableWorkers.get(GamePlayer.RED);
+		this.frames[f + 11] = this.towerCounts.get(GamePlayer.BLUE);
+		this.frames[f + 12] = this.towerCounts.get(GamePlayer.RED);
+		this.plies += 1;
+
+		this.searching = true;
+		this.board.setJournaling(true);
+	}
+
+	/**
+	 * Returns a snapshot of a single board position, or null if the location
+	 * is off the board. Changes to the returned tile do not affect the game.
+	 */
+	public RiseTile getTile(int x, int y) {
+		if (!validLocation(x, y)) {
+			return null;
+		}
+		int cell = RiseBoard.cell(x, y);
+		RiseTile tile = this.board.toTile(cell);
+		if (this.isSelected(cell)) {
+			tile.select();
+		}
+		return tile;
+	}
+
+	private boolean isSelected(int cell) {
+		switch (this.turnState) {
+		case SELECTED:
+			return cell == this.selectedTile;
+		case SACRIFICING:
+			return cell == this.sacrifices[0] || cell == this.sacrifices[1];
+		}
+		return false;
+	}
+
+	private void buildLayout(Layout layout) {
+		int left = layout.getLeft();
+		int top = layout.getTop();
+
+		for (int x = 0; x < layout.getWidth(); x += 1) {
+			for (int y = 0; y < layout.getHeight(); y += 1) {
+				int cell = RiseBoard.cell(left + x, top + y);
+				switch (layout.get(x, y)) {
+				case Layout.BLUE_WORKER:
+					this.board.setWorker(cell, GamePlayer.BLUE);
+					break;
+				case Layout.RED_WORKER:
+					this.board.setWorker(cell, GamePlayer.RED);
+					break;
+				case Layout.TILE:
+					this.board.setTile(cell);
+					break;
+				}
+			}
+		}
+	}
+
+	private boolean validLocation(int x, int y) {
+		return RiseBoard.isValid(x, y);
+	}
+
+	private static GridLocation toLocation(int cell) {
+		return new GridLocation(RiseBoard.cellX(cell), RiseBoard.cellY(cell));
+	}
+
+	private boolean doActionSacrifice(int x, int y, GamePlayer player) {
+		int theTile = RiseBoard.cell(x, y);
+
+		// SACRIFICE TO PLACE ANYWHERE
+		if (this.board.isTile(theTile)
+				&& (WORKER_COUNT - this.availableWorkers.get(player) > 2)) {
+			this.sacrificeToAdd(this.sacrifices[0], this.sacrifices[1],
+					theTile, player);
+			return true;
+		}
+		// SACRIFICE TO REMOVE OTHER PLAYER
+		if (this.board.isWorker(theTile, RiseGame.otherPlayer(player))
+				&& (WORKER_COUNT - this.availableWorkers.get(player) > 2)) {
+			this.sacrificeToRemove(this.sacrifices[0], this.sacrifices[1],
+					theTile, player);
+			return true;
+		}
+		// UNSELECT THIS TILE
+		if (theTile == this.sacrifices[0] || theTile == this.sacrifices[1]) {
+			this.turnState = TurnState.SELECTED;
+			if (theTile == this.sacrifices[0]) {
+				this.selectedTile = this.sacrifices[1];
+			} else {
+				this.selectedTile = this.sacrifices[0];
+			}
+			this.addUpdate(new GameUpdate(UpdateType.WORKER_UNSELECTED,
+					new GridLocation(x, y)));
+			return true;
+
+		}
+
+		this.setMessage("You are in sacrifice mode, you cannot do that!");
+		return false;
+	}
+
+	private boolean doActionSelected(int x, int y, GamePlayer player) {
+		int theTile = RiseBoard.cell(x, y);
+
+		// UNSELECT WORKER
+		if (theTile == this.selectedTile) {
+			this.turnState = TurnState.NOTHING;
+			this.selectedTile = NO_CELL;
+			this.addUpdate(new GameUpdate(UpdateType.WORKER_UNSELECTED,
+					new GridLocation(x, y)));
+			return true;
+		}
+		// GO INTO SACRIFICE
+		if (this.board.isWorker(theTile, player)) {
+			this.turnState = TurnState.SACRIFICING;
+			this.sacrifices[0] = this.selectedTile;
+			this.sacrifices[1] = theTile;
+			this.selectedTile = NO_CELL;
+			this.addUpdate(new GameUpdate(UpdateType.WORKER_SELECTED,
+					new GridLocation(x, y)));
+			return true;
+		}
+		// MOVE WORKER
+		if (this.board.isTile(theTile)
+				&& RiseBoard.areNeighbours(theTile, this.selectedTile)) {
+			this.moveWorker(this.selectedTile, theTile, player);
+			return true;
+		}
+		// JUMP WORKER
+		if (this.board.isTile(theTile)) {
+			for (int n = 0; n < 6; n += 1) {
+				int jumped = RiseBoard.neighbour(theTile, n);
+				if (jumped == RiseBoard.OFF_BOARD) {
+					continue;
+				}
+				if (this.board.isWorker(jumped, RiseGame.otherPlayer(player))
+						&& RiseBoard.neighbour(jumped, n) == this.selectedTile) {
+					this.jumpWorker(this.selectedTile, theTile, jumped, player);
+					return true;
+				}
+			}
+		}
+
+		this.setMessage("You are in selected mode, you cannot do that!");
+		return false;
+	}
+
+	private boolean doActionNothing(int x, int y, GamePlayer player) {
+		int theTile = RiseBoard.cell(x, y);
+
+		// ADD TILE
+		if (this.board.isBlank(theTile) && this.availableTiles > 0) {
+			if (this.board.hasNeighbour(theTile)) {
+				this.addTile(theTile, player);
+				return true;
+			} else {
+				this.setMessage("Cannot add a tile here.");
+				return false;
+			}
+		}
+		// ADD WORKER
+		if (this.board.isTile(theTile)
+				& this.availableWorkers.get(player) > 0) {
+			if (this.board.hasNeighbourWorker(theTile, player)) {
+				this.addWorker(theTile, player);
+				return true;
+			} else {
+				this.setMessage("Cannot add a worker here.");
+				return false;
+			}
+		}
+		// REMOVE TOWER
+		if (this.board.isTower(theTile, player)) {
+			this.removeTower(theTile, player);
+			return true;
+		}
+		// SELECT WORKER
+		if (this.board.isWorker(theTile, player)) {
+			this.turnState = TurnState.SELECTED;
+			this.selectedTile = theTile;
+			this.addUpdate(new GameUpdate(UpdateType.WORKER_SELECTED,
+					new GridLocation(x, y)));
+			return true;
+		}
+
+		this.setMessage("You are in regular mode, yet you cannot do that!");
+		return false;
+	}
+
+	private void addTile(int cell, GamePlayer player) {
+		this.board.setTile(cell);
+		this.availableTiles -= 1;
+		this.moveMade(player);
+		this.update(UpdateType.TILE_ADDED, cell);
+	}
+
+	private void addWorker(int cell, GamePlayer player) {
+		this.board.setWorker(cell, player);
+		this.availableWorkers.put(player,
+				this.availableWorkers.get(player) - 1);
+		this.moveMade(player);
+		this.update(UpdateType.WORKER_ADDED, cell, player);
+	}
+
+	private void removeTower(int cell, GamePlayer player) {
+		this.board.demolishTower(cell);
+		this.towerCounts.put(player, this.towerCounts.get(player) - 1);
+		this.moveMade(player);
+		if (this.board.isTower(cell)) {
+			this.update(UpdateType.TOWER_REDUCED, cell);
+		} else {
+			this.update(UpdateType.TOWER_DEMOLISHED, cell);
+		}
+	}
+
+	private void moveWorker(int from, int to, GamePlayer player) {
+		this.board.setWorker(to, player);
+		this.board.setTile(from);
+		this.selectedTile = NO_CELL;
+		this.moveMade(player);
+		this.update(UpdateType.WORKER_MOVED, from, to);
+	}
+
+	private void jumpWorker(int from, int to, int jumped, GamePlayer player) {
+		this.board.setWorker(to, player);
+		this.board.setTile(jumped);
+
+		this.availableWorkers.put(RiseGame.otherPlayer(player),
+				this.availableWorkers.get(RiseGame.otherPlayer(player)) + 1);
+		this.board.setTile(from);
+		this.selectedTile = NO_CELL;
+		this.moveMade(player);
+		this.update(UpdateType.WORKER_JUMP, from, to, jumped);
+	}
+
+	private void sacrificeToAdd(int first, int second, int cell,
+			GamePlayer player) {
+		this.board.setTile(first);
+		this.board.setTile(second);
+		this.availableWorkers.put(player,
+				this.availableWorkers.get(player) + 2);
+		this.board.setWorker(cell, player);
+		this.availableWorkers.put(player,
+				this.availableWorkers.get(player) - 1);
+		this.moveMade(player);
+		this.update(UpdateType.SACRIFICE_ADD, cell, first, second);
+	}
+
+	private void sacrificeToRemove(int first, int second, int cell,
+			GamePlayer player) {
+		this.board.setTile(first);
+		this.board.setTile(second);
+		this.availableWorkers.put(player,
+				this.availableWorkers.get(player) + 2);
+		this.board.setTile(cell);
+		this.availableWorkers.put(RiseGame.otherPlayer(player),
+				this.availableWorkers.get(RiseGame.otherPlayer(player)) + 1);
+		this.moveMade(player);
+		this.update(UpdateType.SACRIFICE_REMOVE, cell, first, second);
+	}
+
+	private static GamePlayer otherPlayer(GamePlayer player) {
+		return player == GamePlayer.BLUE ? GamePlayer.RED : GamePlayer.BLUE;
+	}
+
+	private void moveMade(GamePlayer player) {
+
+		GamePlayer other = RiseGame.otherPlayer(player);
+		long[] surrounded = this.board.surrounded(player);
+		for (int cell = RiseBoard.nextSetBit(surrounded, this.board.firstCell()); cell >= 0; cell = RiseBoard
+				.nextSetBit(surrounded, cell + 1)) {
+			if (RiseBoard.get(this.towersProcessed, cell)) {
+				continue;
+			}
+			if (this.board.isTower(cell, other)) {
+				this.board.demolishTower(cell);
+				this.markProcessed(cell);
+
+				this.towerCounts.put(other, this.towerCounts.get(other) - 1);
+				if (this.towerCounts.get(other) == 0) {
+					this.update(UpdateType.TOWER_DEMOLISHED, cell);
+				} else {
+					this.update(UpdateType.TOWER_REDUCED, cell);
+				}
+			}
+			if (this.board.isTile(cell)) {
+				this.board.setTower(cell, player, 0);
+				this.update(UpdateType.TOWER_CREATED, cell, player);
+			}
+			if (this.board.isTower(cell, player)) {
+				this.markProcessed(cell);
+
+				if (this.board.buildTower(cell)) {
+					this.towerCounts.put(player,
+							this.towerCounts.get(player) + 1);
+					this.update(UpdateType.TOWER_BUILT, cell);
+				}
+			}
+		}
+
+		this.update(UpdateType.MOVE_MADE, player);
+
+		this.turnState = TurnState.NOTHING;
+		this.moveCounter -= 1;
+		if (this.moveCounter <= 0) {
+			this.endTurn();
+		} else if (this.checkVictory()) {
+			return;
+		}
+	}
+
+	private void endTurn() {
+
+		this.turn = RiseGame.otherPlayer(this.turn);
+		this.moveCounter = 2;
+
+		GamePlayer other = RiseGame.otherPlayer(this.turn);
+		this.clearProcessed();
+		long[] surrounded = this.board.surrounded(this.turn);
+		for (int cell = RiseBoard.nextSetBit(surrounded, this.board.firstCell()); cell >= 0; cell = RiseBoard
+				.nextSetBit(surrounded, cell + 1)) {
+			if (RiseBoard.get(this.towersProcessed, cell)) {
+				continue;
+			}
+			if (this.board.isTower(cell, other)) {
+				this.board.demolishTower(cell);
+				this.markProcessed(cell);
+				this.towerCounts.put(other, this.towerCounts.get(other) - 1);
+				this.update(UpdateType.TOWER_REDUCED, cell);
+			}
+			if (this.board.isTile(cell)) {
+				this.board.setTower(cell, this.turn, 0);
+			}
+			if (this.board.isTower(cell, this.turn)) {
+				this.markProcessed(cell);
+				if (this.board.buildTower(cell)) {
+					this.towerCounts.put(this.turn,
+							this.towerCounts.get(this.turn) + 1);
+					this.update(UpdateType.TOWER_BUILT, cell);
+				}
+			}
+		}
+
+		this.update(UpdateType.TURN_FINISHED, this.turn);
+
+		if (this.checkVictory()) {
+			return;
+		}
+	}
+
+	private void markProcessed(int cell) {
+		if (this.searching) {
+			this.journalProcessed(cell);
+		}
+		this.setProcessed(cell, true);
+	}
+
+	private void clearProcessed() {
+		for (int cell = RiseBoard.nextSetBit(this.towersProcessed, this.board.firstCell()); cell >= 0; cell = RiseBoard
+				.nextSetBit(this.towersProcessed, cell + 1)) {
+			if (this.searching) {
+				this.journalProcessed(cell);
+			}
+			this.setProcessed(cell, false);
+		}
+	}
+
+	private void setProcessed(int cell, boolean processed) {
+		if (RiseBoard.get(this.towersProcessed, cell) == processed) {
+			return;
+		}
+		if (processed) {
+			RiseBoard.set(this.towersProcessed, cell);
+		} else {
+			RiseBoard.unset(this.towersProcessed, cell);
+		}
+		this.processedHash ^= Zobrist.processed(cell);
+	}
+
+	private void journalProcessed(int cell) {
+		if (this.processedJournalSize == this.processedJournal.length) {
+			int[] grown = new int[this.processedJournal.length * 2];
+			System.arraycopy(this.processedJournal, 0, grown, 0,
+					this.processedJournalSize);
+			this.processedJournal = grown;
+		}
+		this.processedJournal[this.processedJournalSize] = (cell << 1)
+				| (RiseBoard.get(this.towersProcessed, cell) ? 1 : 0);
+		this.processedJournalSize += 1;
+	}
+
+	private boolean checkVictory() {
+
+		if (this.availableWorkers.get(RiseGame.otherPlayer(this.turn)) == WORKER_COUNT) {
+			if (!this.searching) {
+				Log.e(TAG, "VICTORY NOT IMPLEMENTED!");
+			}
+			return true;
+		}
+		if (this.availableWorkers.get(this.turn) == WORKER_COUNT) {
+			if (!this.searching) {
+				Log.e(TAG, "VICTORY NOT IMPLEMENTED!");
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Takes the oldest queued update, or returns null if there are none.
+	 */
+	public GameUpdate getUpdate() {
+		return this.updates.poll();
+	}
+
+	/**
+	 * Takes every queued update, oldest first, and adds them to the
+	 * collection. Returns how many there were.
+	 */
+	public int drainUpdates(Collection<? super GameUpdate> collection) {
+		return this.updates.drainTo(collection);
+	}
+
+	// The update helpers skip building GameUpdates while searching, so that
+	// makeMove does not allocate.
+
+	private void update(UpdateType type, int cell) {
+		if (!this.searching) {
+			this.addUpdate(new GameUpdate(type, toLocation(cell)));
+		}
+	}
+
+	private void update(UpdateType type, int cell, GamePlayer player) {
+		if (!this.searching) {
+			this.addUpdate(new GameUpdate(type, toLocation(cell), player));
+		}
+	}
+
+	private void update(UpdateType type, int cell, int second) {
+		if (!this.searching) {
+			this.addUpdate(new GameUpdate(type, toLocation(cell),
+					toLocation(second)));
+		}
+	}
+
+	private void update(UpdateType type, int cell, int second, int third) {
+		if (!this.searching) {
+			this.addUpdate(new GameUpdate(type, toLocation(cell),
+					toLocation(second), toLocation(third)));
+		}
+	}
+
+	private void update(UpdateType type, GamePlayer player) {
+		if (!this.searching) {
+			this.addUpdate(new GameUpdate(type, player));
+		}
+	}
+
+	/**
+	 * Queues an update for the game thread. Actions come from the UI thread,
+	 * which must never wait on the game thread, so if the queue is full the
+	 * update is dropped and logged rather than waiting for room.
+	 */
+	private void addUpdate(GameUpdate update) {
+		if (!this.updates.offer(update)) {
+			Log.e(TAG, "Update queue full, dropped " + update.type);
+		}
+	}
+
+	public boolean hasUpdate() {
+		return !this.updates.isEmpty();
+	}
+
+}
@@ -1,7 +1,5 @@
 package com.matthewtole.androidrise.lib;
 
-import com.matthewtole.androidrise.game.Common;
-
 public class ScreenLocation implements Location {
 
 	private float x = 0;
@@ -47,14 +45,14 @@ public class ScreenLocation implements Location {
 		float x = this.getScreenX();
 		float y = this.getScreenY();
 		
-		//x -= Common.TILE_WIDTH_HALF;
-		//y -= Common.TILE_HEIGHT_HALF;
+		//x -= Geometry.TILE_WIDTH_HALF;
+		//y -= Geometry.TILE_HEIGHT_HALF;
 		
-		int gY = (int)y / Common.TILE_HEIGHT_THREEQUARTERS;
+		int gY = (int)y / Geometry.TILE_HEIGHT_THREEQUARTERS;
 		if (Math.abs(gY % 2) == 1) {
-			x -= Common.TILE_WIDTH_HALF;
+			x -= Geometry.TILE_WIDTH_HALF;
 		}
-		int gX = (int)x / Common.TILE_WIDTH;
+		int gX = (int)x / Geometry.TILE_WIDTH;
 		
 		return new GridLocation(gX, gY);
 	}
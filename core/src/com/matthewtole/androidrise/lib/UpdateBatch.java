@@ -0,0 +1,99 @@
+package com.matthewtole.androidrise.lib;
+
+import java.util.ArrayList;
+
+import com.matthewtole.androidrise.lib.enums.UpdateType;
+
+/**
+ * Every update waiting in a game, taken in one go so the view can apply them
+ * all in the same tick. Updates that a later one in the batch makes
+ * pointless are dropped: a worker selection changed again before anything
+ * else happened to that worker, and a tower built up or reduced just before
+ * being demolished.
+ */
+public class UpdateBatch {
+
+	private final ArrayList<GameUpdate> updates = new ArrayList<GameUpdate>();
+
+	/**
+	 * Takes every waiting update from the game and drops the redundant ones.
+	 * Returns how many are left.
+	 */
+	public int drain(RiseGame game) {
+		this.updates.clear();
+		if (game.drainUpdates(this.updates) == 0) {
+			return 0;
+		}
+		int count = this.updates.size();
+		for (int i = 0; i < this.updates.size(); i += 1) {
+			if (this.isRedundant(i)) {
+				this.updates.set(i, null);
+				count -= 1;
+			}
+		}
+		return count;
+	}
+
+	public int size() {
+		return this.updates.size();
+	}
+
+	/**
+	 * The update at index, or null if it was dropped.
+	 */
+	public GameUpdate get(int index) {
+		return this.updates.get(index);
+	}
+
+	public void clear() {
+		this.updates.clear();
+	}
+
+	private boolean isRedundant(int index) {
+		GameUpdate update = this.updates.get(index);
+		if (isSelection(update.type)) {
+			GameUpdate next = this.nextAt(index, update.location);
+			return next != null && isSelection(next.type)
+					&& same(update.location, next.location);
+		}
+		if (update.type == UpdateType.TOWER_BUILT
+				|| update.type == UpdateType.TOWER_REDUCED) {
+			GameUpdate next = this.nextAt(index, update.location);
+			return next != null && next.type == UpdateType.TOWER_DEMOLISHED
+					&& same(update.location, next.location);
+		}
+		return false;
+	}
+
+	/**
+	 * The first update after index that involves the location in any way.
+	 */
+	private GameUpdate nextAt(int index, GridLocation location) {
+		if (location == null) {
+			return null;
+		}
+		for (int i = index + 1; i < this.updates.size(); i += 1) {
+			GameUpdate next = this.updates.get(i);
+			if (next != null
+					&& (same(location, next.location)
+							|| same(location, next.locationSecondary) || same(
+								location, next.locationTertiary))) {
+				return next;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Whether other is the same place as location. Updates such as MOVE_MADE
+	 * have no locations, and GridLocation.equals cannot be given null.
+	 */
+	private static boolean same(GridLocation location, GridLocation other) {
+		return other != null && location.equals(other);
+	}
+
+	private static boolean isSelection(UpdateType type) {
+		return type == UpdateType.WORKER_SELECTED
+				|| type == UpdateType.WORKER_UNSELECTED;
+	}
+}
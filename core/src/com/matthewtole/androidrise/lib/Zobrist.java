@@ -0,0 +1,54 @@
+package com.matthewtole.androidrise.lib;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing of Rise positions. The seed is fixed so that
+ * the same position always hashes to the same value.
+ */
+public final class Zobrist {
+
+	private static final long SEED = 0x52697365L;
+
+	private static final long[][] CONTENTS = new long[RiseBoard.CONTENT_TYPES][RiseBoard.CELLS];
+	private static final long[] PROCESSED = new long[RiseBoard.CELLS];
+	private static final long[] TURN = new long[3];
+	private static final long[] MOVES_LEFT = new long[3];
+
+	static {
+		Random random = new Random(SEED);
+		// Blank cells leave CONTENTS[BLANK] as zero, so an empty board hashes
+		// to zero.
+		for (int c = 1; c < RiseBoard.CONTENT_TYPES; c += 1) {
+			fill(random, CONTENTS[c]);
+		}
+		fill(random, PROCESSED);
+		fill(random, TURN);
+		fill(random, MOVES_LEFT);
+	}
+
+	private Zobrist() {
+	}
+
+	public static long contents(int contents, int cell) {
+		return CONTENTS[contents][cell];
+	}
+
+	public static long processed(int cell) {
+		return PROCESSED[cell];
+	}
+
+	public static long turn(int player) {
+		return TURN[player];
+	}
+
+	public static long movesLeft(int moves) {
+		return MOVES_LEFT[moves];
+	}
+
+	private static void fill(Random random, long[] keys) {
+		for (int i = 0; i < keys.length; i += 1) {
+			keys[i] = random.nextLong();
+		}
+	}
+}
@@ -0,0 +1,263 @@
+package com.matthewtole.androidrise.lib.ai;
+
+import com.matthewtole.androidrise.lib.Move;
+import com.matthewtole.androidrise.lib.MoveList;
+import com.matthewtole.androidrise.lib.RiseGame;
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
+
+/**
+ * Picks a move with iterative-deepening alpha-beta search over
+ * RiseGame.makeMove and unmakeMove, stopping when its time budget runs out.
+ * 
+ * A player makes two moves per turn, so the search only flips the sign of a
+ * score when the player to move changes.
+ * 
+ * Late in the game almost every legal move is a sacrifice, so they are only
+ * searched in the first SACRIFICE_PLIES plies, or where there is nothing
+ * else to play, and always after the other moves.
+ */
+public class AlphaBetaSearch implements MoveSearch {
+
+	private static final int MAX_DEPTH = 32;
+	private static final int INFINITY = 1000000;
+	private static final int WIN = 100000;
+
+	// How many plies from the root still look at sacrifices.
+	private static final int SACRIFICE_PLIES = 2;
+
+	private static final int TOWER_VALUE = 100;
+	private static final int WORKER_VALUE = 10;
+
+	// How many nodes to search between checks of the clock.
+	private static final int CLOCK_INTERVAL = 1023;
+
+	private final TranspositionTable table;
+	private final MoveList[] moveLists;
+
+	private RiseGame game;
+	private long deadline;
+	private volatile boolean stopped;
+	private boolean aborted;
+	private int nodes;
+	private int depthReached;
+
+	public AlphaBetaSearch(int tableSizeBits) {
+		this.table = new TranspositionTable(tableSizeBits);
+		this.moveLists = new MoveList[MAX_DEPTH + 1];
+		for (int i = 0; i < this.moveLists.length; i += 1) {
+			this.moveLists[i] = new MoveList();
+		}
+	}
+
+	public long findMove(RiseGame game, long timeBudget) {
+		this.game = game;
+		this.deadline = System.nanoTime() + timeBudget * 1000000L;
+		this.stopped = false;
+		this.aborted = false;
+		this.nodes = 0;
+		this.depthReached = 0;
+
+		MoveList rootMoves = this.moveLists[0];
+		if (game.generateMoves(rootMoves) == 0) {
+			return Move.NONE;
+		}
+		long best = rootMoves.get(0);
+
+		for (int depth = 1; depth <= MAX_DEPTH; depth += 1) {
+			long move = this.searchRoot(depth, best);
+			if (this.aborted) {
+				break;
+			}
+			best = move;
+			this.depthReached = depth;
+		}
+
+		this.game = null;
+		return best;
+	}
+
+	public void stop() {
+		this.stopped = true;
+	}
+
+	public int getNodes() {
+		return this.nodes;
+	}
+
+	public int getDepthReached() {
+		return this.depthReached;
+	}
+
+	private long searchRoot(int depth, long previousBest) {
+		MoveList moves = this.moveLists[0];
+		this.generateMoves(moves, 0, previousBest);
+
+		GamePlayer me = this.game.getCurrentPlayer();
+		int alpha = -INFINITY;
+		long best = moves.get(0);
+		for (int i = 0; i < moves.size(); i += 1) {
+			long move = moves.get(i);
+			int value = this.searchChild(move, me, depth - 1, 1, alpha,
+					INFINITY);
+			if (this.aborted) {
+				return best;
+			}
+			if (value > alpha) {
+				alpha = value;
+				best = move;
+			}
+		}
+		this.table.store(this.game.getHash(), depth, TranspositionTable.EXACT,
+				alpha, best);
+		return best;
+	}
+
+	private int searchChild(long move, GamePlayer me, int depth, int ply,
+			int alpha, int beta) {
+		this.game.makeMove(move);
+		int value;
+		if (this.game.getCurrentPlayer() == me) {
+			value = this.search(depth, ply, alpha, beta);
+		} else {
+			value = -this.search(depth, ply, -beta, -alpha);
+		}
+		this.game.unmakeMove();
+		return value;
+	}
+
+	private int search(int depth, int ply, int alpha, int beta) {
+		this.nodes += 1;
+		if ((this.nodes & CLOCK_INTERVAL) == 0
+				&& (this.stopped || System.nanoTime() > this.deadline)) {
+			this.aborted = true;
+		}
+		if (this.aborted) {
+			return 0;
+		}
+
+		GamePlayer me = this.game.getCurrentPlayer();
+		GamePlayer winner = this.game.getWinner();
+		if (winner != GamePlayer.UNKNOWN) {
+			return winner == me ? WIN - ply : ply - WIN;
+		}
+		if (depth <= 0 || ply >= MAX_DEPTH) {
+			return this.evaluate(me);
+		}
+
+		long hash = this.game.getHash();
+		long hashMove = Move.NONE;
+		int slot = this.table.probe(hash);
+		if (slot != TranspositionTable.MISSING) {
+			hashMove = this.table.getMove(slot);
+			if (this.table.getDepth(slot) >= depth) {
+				int value = this.table.getValue(slot);
+				switch (this.table.getFlag(slot)) {
+				case TranspositionTable.EXACT:
+					return value;
+				case TranspositionTable.LOWER_BOUND:
+					alpha = Math.max(alpha, value);
+					break;
+				case TranspositionTable.UPPER_BOUND:
+					beta = Math.min(beta, value);
+					break;
+				}
+				if (alpha >= beta) {
+					return value;
+				}
+			}
+		}
+
+		MoveList moves = this.moveLists[ply];
+		if (this.generateMoves(moves, ply, hashMove) == 0) {
+			return this.evaluate(me);
+		}
+
+		int originalAlpha = alpha;
+		int best = -INFINITY;
+		long bestMove = Move.NONE;
+		for (int i = 0; i < moves.size(); i += 1) {
+			long move = moves.get(i);
+			int value = this.searchChild(move, me, depth - 1, ply + 1, alpha,
+					beta);
+			if (this.aborted) {
+				return 0;
+			}
+			if (value > best) {
+				best = value;
+				bestMove = move;
+				if (value > alpha) {
+					alpha = value;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+
+		int flag = TranspositionTable.EXACT;
+		if (best <= originalAlpha) {
+			flag = TranspositionTable.UPPER_BOUND;
+		} else if (best >= beta) {
+			flag = TranspositionTable.LOWER_BOUND;
+		}
+		this.table.store(hash, depth, flag, best, bestMove);
+		return best;
+	}
+
+	/**
+	 * Fills moves with the moves to search at the given ply, in the order to
+	 * search them: the hash move, then the other moves that take an opposing
+	 * worker, then the rest, with sacrifices after all of the other moves.
+	 */
+	private int generateMoves(MoveList moves, int ply, long hashMove) {
+		int regular = this.game.generateRegularMoves(moves);
+		if (ply < SACRIFICE_PLIES || regular == 0) {
+			this.game.generateSacrifices(moves);
+		}
+		this.capturesFirst(moves, 0, regular, Move.JUMP);
+		this.capturesFirst(moves, regular, moves.size(),
+				Move.SACRIFICE_REMOVE);
+		if (hashMove != Move.NONE) {
+			for (int i = 0; i < moves.size(); i += 1) {
+				if (moves.get(i) == hashMove) {
+					// Shift rather than swap so a sacrifice hash move does
+					// not send a regular move to the back.
+					for (int j = i; j > 0; j -= 1) {
+						moves.set(j, moves.get(j - 1));
+					}
+					moves.set(0, hashMove);
+					break;
+				}
+			}
+		}
+		return moves.size();
+	}
+
+	/**
+	 * Moves the moves of the given type between start and end to the front
+	 * of that range.
+	 */
+	private void capturesFirst(MoveList moves, int start, int end, int type) {
+		int next = start;
+		for (int i = start; i < end; i += 1) {
+			if (Move.type(moves.get(i)) == type) {
+				moves.swap(next, i);
+				next += 1;
+			}
+		}
+	}
+
+	/**
+	 * Scores the position for the given player: tower levels count the most,
+	 * then workers on the board.
+	 */
+	private int evaluate(GamePlayer player) {
+		GamePlayer other = player == GamePlayer.BLUE ? GamePlayer.RED
+				: GamePlayer.BLUE;
+		int towers = this.game.getTowerCount(player)
+				- this.game.getTowerCount(other);
+		int workers = this.game.getAvailableWorkers(other)
+				- this.game.getAvailableWorkers(player);
+		return towers * TOWER_VALUE + workers * WORKER_VALUE;
+	}
+}
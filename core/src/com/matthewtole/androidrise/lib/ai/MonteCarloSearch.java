@@ -0,0 +1,347 @@
+package com.matthewtole.androidrise.lib.ai;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.matthewtole.androidrise.lib.Move;
+import com.matthewtole.androidrise.lib.MoveList;
+import com.matthewtole.androidrise.lib.RiseGame;
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
+
+/**
+ * Picks a move with Monte Carlo tree search, using root parallelisation: each
+ * thread grows its own tree from its own copy of the game, and the visit
+ * counts of the root moves are added together once the time runs out.
+ * 
+ * Late in the game a position can have thousands of sacrifices and only a
+ * few dozen other moves, so a node keeps just its other moves and the number
+ * of sacrifices, and picks sacrifices by index when it gets to them. Nodes
+ * are widened progressively, gaining children as they are visited rather
+ * than trying every move once before looking deeper, and the other moves are
+ * tried before any sacrifice.
+ * 
+ * Playouts are random moves made with RiseGame.makeMove, cut off after a
+ * fixed number of moves and scored by tower levels, then workers on the
+ * board. All of a position's sacrifices together are only as likely to be
+ * played as any one other move.
+ */
+public class MonteCarloSearch implements MoveSearch {
+
+	private static final double EXPLORATION = 1.4;
+	private static final int PLAYOUT_LENGTH = 20;
+	private static final int TOWER_VALUE = 10;
+	// A node visited n times may have up to 1 + WIDENING * sqrt(n) children.
+	private static final double WIDENING = 2;
+
+	private final int threads;
+	private volatile boolean stopped;
+	private int playouts;
+
+	public MonteCarloSearch(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	public long findMove(RiseGame game, long timeBudget) {
+		this.stopped = false;
+		this.playouts = 0;
+
+		MoveList rootMoves = new MoveList();
+		int regular = game.generateRegularMoves(rootMoves);
+		int sacrifices = game.countSacrifices();
+		if (regular + sacrifices == 0) {
+			return Move.NONE;
+		}
+		if (regular + sacrifices == 1) {
+			return regular == 1 ? rootMoves.get(0) : game.getSacrifice(0);
+		}
+
+		long deadline = System.nanoTime() + timeBudget * 1000000L;
+		Worker[] workers = new Worker[this.threads];
+		for (int i = 0; i < workers.length; i += 1) {
+			workers[i] = new Worker(new RiseGame(game), deadline,
+					System.nanoTime() + i);
+			workers[i].start();
+		}
+
+		// Threads may have widened the root to different moves, so match
+		// them up by move.
+		HashMap<Long, Integer> visits = new HashMap<Long, Integer>();
+		for (int i = 0; i < workers.length; i += 1) {
+			boolean retry = true;
+			while (retry) {
+				try {
+					workers[i].join();
+					retry = false;
+				} catch (InterruptedException e) {
+					this.stop();
+				}
+			}
+			Node root = workers[i].root;
+			for (int c = 0; c < root.expanded; c += 1) {
+				Long move = Long.valueOf(root.children[c].move);
+				Integer sum = visits.get(move);
+				visits.put(move, (sum == null ? 0 : sum.intValue())
+						+ root.children[c].visits);
+			}
+			this.playouts += root.visits;
+		}
+
+		long best = regular > 0 ? rootMoves.get(0) : game.getSacrifice(0);
+		int bestVisits = -1;
+		for (Map.Entry<Long, Integer> entry : visits.entrySet()) {
+			if (entry.getValue().intValue() > bestVisits) {
+				bestVisits = entry.getValue().intValue();
+				best = entry.getKey().longValue();
+			}
+		}
+		return best;
+	}
+
+	public void stop() {
+		this.stopped = true;
+	}
+
+	public int getPlayouts() {
+		return this.playouts;
+	}
+
+	public int getThreads() {
+		return this.threads;
+	}
+
+	private static final class Node {
+		final long move;
+		// The player who made the move leading to this node.
+		final GamePlayer mover;
+		// Moves from this node other than sacrifices, in the order they will
+		// be expanded, or null until the node is first expanded.
+		long[] moves;
+		int sacrifices;
+		// Sacrifices are expanded in the order first, first + step, ... of
+		// their indexes, modulo their number, which visits each of them once
+		// since step and their number have no common factor.
+		int firstSacrifice;
+		int sacrificeStep;
+		Node[] children;
+		int expanded;
+		int visits;
+		double wins;
+
+		Node(long move, GamePlayer mover) {
+			this.move = move;
+			this.mover = mover;
+		}
+
+		int moveCount() {
+			return this.moves.length + this.sacrifices;
+		}
+
+		/**
+		 * Whether the node has as many children as it may have for now.
+		 */
+		boolean isWide() {
+			return this.expanded == this.moveCount()
+					|| this.expanded >= 1 + WIDENING * Math.sqrt(this.visits);
+		}
+	}
+
+	private final class Worker extends Thread {
+
+		private final RiseGame game;
+		private final long deadline;
+		private final Random random;
+		private final MoveList moveList = new MoveList();
+		private final Node root;
+		private Node[] path = new Node[64];
+
+		Worker(RiseGame game, long deadline, long seed) {
+			this.game = game;
+			this.deadline = deadline;
+			this.random = new Random(seed);
+			this.root = new Node(Move.NONE, GamePlayer.UNKNOWN);
+			this.fill(this.root);
+		}
+
+		@Override
+		public void run() {
+			while (!stopped) {
+				for (int i = 0; i < 16; i += 1) {
+					this.iterate();
+				}
+				if (System.nanoTime() > this.deadline) {
+					break;
+				}
+			}
+		}
+
+		private void iterate() {
+			int depth = 0;
+			Node node = this.root;
+			this.path[depth] = node;
+
+			// Walk down through nodes that may not have any more children yet.
+			while (node.moves != null && node.expanded > 0 && node.isWide()) {
+				node = this.select(node);
+				this.game.makeMove(node.move);
+				depth += 1;
+				this.push(depth, node);
+			}
+
+			// Expand one new child, unless the game is over here.
+			if (this.game.getWinner() == GamePlayer.UNKNOWN) {
+				if (node.moves == null) {
+					this.fill(node);
+				}
+				if (node.expanded < node.moveCount()) {
+					long move = this.nextMove(node);
+					Node child = new Node(move, this.game.getCurrentPlayer());
+					if (node.expanded == node.children.length) {
+						Node[] grown = new Node[node.children.length * 2];
+						System.arraycopy(node.children, 0, grown, 0,
+								node.expanded);
+						node.children = grown;
+					}
+					node.children[node.expanded] = child;
+					node.expanded += 1;
+					this.game.makeMove(move);
+					depth += 1;
+					this.push(depth, child);
+				}
+			}
+
+			double blueScore = this.playout();
+
+			for (int i = depth; i >= 0; i -= 1) {
+				Node n = this.path[i];
+				n.visits += 1;
+				n.wins += n.mover == GamePlayer.BLUE ? blueScore
+						: 1 - blueScore;
+				if (i > 0) {
+					this.game.unmakeMove();
+				}
+			}
+		}
+
+		private void push(int depth, Node node) {
+			if (depth == this.path.length) {
+				Node[] grown = new Node[this.path.length * 2];
+				System.arraycopy(this.path, 0, grown, 0, this.path.length);
+				this.path = grown;
+			}
+			this.path[depth] = node;
+		}
+
+		private Node select(Node node) {
+			double logVisits = Math.log(node.visits);
+			Node best = null;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < node.expanded; i += 1) {
+				Node child = node.children[i];
+				double value = child.wins / child.visits + EXPLORATION
+						* Math.sqrt(logVisits / child.visits);
+				if (value > bestValue) {
+					bestValue = value;
+					best = child;
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * Plays random moves from the current position and returns the result
+		 * from blue's point of view, leaving the game where it started.
+		 */
+		private double playout() {
+			int made = 0;
+			while (made < PLAYOUT_LENGTH
+					&& this.game.getWinner() == GamePlayer.UNKNOWN) {
+				int regular = this.game.generateRegularMoves(this.moveList);
+				int sacrifices = this.game.countSacrifices();
+				long move;
+				if (sacrifices > 0
+						&& this.random.nextInt(regular + 1) == regular) {
+					move = this.game.getSacrifice(this.random
+							.nextInt(sacrifices));
+				} else if (regular > 0) {
+					move = this.moveList.get(this.random.nextInt(regular));
+				} else {
+					break;
+				}
+				this.game.makeMove(move);
+				made += 1;
+			}
+
+			double score;
+			GamePlayer winner = this.game.getWinner();
+			if (winner != GamePlayer.UNKNOWN) {
+				score = winner == GamePlayer.BLUE ? 1 : 0;
+			} else {
+				int towers = this.game.getTowerCount(GamePlayer.BLUE)
+						- this.game.getTowerCount(GamePlayer.RED);
+				int workers = this.game.getAvailableWorkers(GamePlayer.RED)
+						- this.game.getAvailableWorkers(GamePlayer.BLUE);
+				int lead = towers * TOWER_VALUE + workers;
+				score = lead > 0 ? 1 : lead < 0 ? 0 : 0.5;
+			}
+
+			for (int i = 0; i < made; i += 1) {
+				this.game.unmakeMove();
+			}
+			return score;
+		}
+
+		/**
+		 * Gives the node its moves from the current position.
+		 */
+		private void fill(Node node) {
+			int regular = this.game.generateRegularMoves(this.moveList);
+			node.moves = new long[regular];
+			for (int i = 0; i < regular; i += 1) {
+				node.moves[i] = this.moveList.get(i);
+			}
+			this.shuffle(node.moves);
+			node.sacrifices = this.game.countSacrifices();
+			if (node.sacrifices > 0) {
+				node.firstSacrifice = this.random.nextInt(node.sacrifices);
+				node.sacrificeStep = 1 + this.random.nextInt(node.sacrifices);
+				while (gcd(node.sacrificeStep, node.sacrifices) != 1) {
+					node.sacrificeStep += 1;
+				}
+			}
+			node.children = new Node[Math.max(1,
+					Math.min(node.moveCount(), 8))];
+		}
+
+		/**
+		 * The node's next move to expand, which must be made from the current
+		 * position.
+		 */
+		private long nextMove(Node node) {
+			if (node.expanded < node.moves.length) {
+				return node.moves[node.expanded];
+			}
+			long k = node.expanded - node.moves.length;
+			return this.game.getSacrifice((int) ((node.firstSacrifice + k
+					* node.sacrificeStep) % node.sacrifices));
+		}
+
+		private void shuffle(long[] moves) {
+			for (int i = moves.length - 1; i > 0; i -= 1) {
+				int j = this.random.nextInt(i + 1);
+				long tmp = moves[i];
+				moves[i] = moves[j];
+				moves[j] = tmp;
+			}
+		}
+	}
+
+	private static int gcd(int a, int b) {
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+}
@@ -0,0 +1,22 @@
+package com.matthewtole.androidrise.lib.ai;
+
+import com.matthewtole.androidrise.lib.RiseGame;
+
+/**
+ * A way of choosing the next move for the player to move in a RiseGame.
+ */
+public interface MoveSearch {
+
+	/**
+	 * Searches the position for at most timeBudget milliseconds and returns
+	 * the best move found, or Move.NONE if there are no legal moves. The game
+	 * is left in the position it started in.
+	 */
+	public long findMove(RiseGame game, long timeBudget);
+
+	/**
+	 * Asks a running search to return as soon as possible. Safe to call from
+	 * any thread.
+	 */
+	public void stop();
+}
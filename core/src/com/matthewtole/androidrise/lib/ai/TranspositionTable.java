@@ -0,0 +1,85 @@
+package com.matthewtole.androidrise.lib.ai;
+
+import com.matthewtole.androidrise.lib.Move;
+
+/**
+ * A fixed-size hash table of search results keyed on RiseGame.getHash. Each
+ * slot keeps one entry and a new result replaces it unless the stored one is
+ * for the same position at a greater depth.
+ */
+public class TranspositionTable {
+
+	public static final int EXACT = 0;
+	public static final int LOWER_BOUND = 1;
+	public static final int UPPER_BOUND = 2;
+
+	public static final int MISSING = -1;
+
+	private final long[] keys;
+	private final long[] moves;
+	private final int[] values;
+	private final byte[] depths;
+	private final byte[] flags;
+	private final int mask;
+
+	/**
+	 * Creates a table with 2^sizeBits slots.
+	 */
+	public TranspositionTable(int sizeBits) {
+		int size = 1 << sizeBits;
+		this.keys = new long[size];
+		this.moves = new long[size];
+		this.values = new int[size];
+		this.depths = new byte[size];
+		this.flags = new byte[size];
+		this.mask = size - 1;
+		this.clear();
+	}
+
+	public void clear() {
+		for (int i = 0; i < this.keys.length; i += 1) {
+			this.keys[i] = 0;
+			this.moves[i] = Move.NONE;
+			this.depths[i] = -1;
+		}
+	}
+
+	/**
+	 * Returns the slot holding the position, or MISSING.
+	 */
+	public int probe(long hash) {
+		int slot = (int) hash & this.mask;
+		if (this.depths[slot] >= 0 && this.keys[slot] == hash) {
+			return slot;
+		}
+		return MISSING;
+	}
+
+	public void store(long hash, int depth, int flag, int value, long move) {
+		int slot = (int) hash & this.mask;
+		if (this.keys[slot] == hash && this.depths[slot] > depth) {
+			return;
+		}
+		this.keys[slot] = hash;
+		this.depths[slot] = (byte) depth;
+		this.flags[slot] = (byte) flag;
+		this.values[slot] = value;
+		this.moves[slot] = move;
+	}
+
+	public long getMove(int slot) {
+		return this.moves[slot];
+	}
+
+	public int getValue(int slot) {
+		return this.values[slot];
+	}
+
+	public int getDepth(int slot) {
+		return this.depths[slot];
+	}
+
+	public int getFlag(int slot) {
+		return this.flags[slot];
+	}
+}
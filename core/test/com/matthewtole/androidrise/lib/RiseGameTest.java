@@ -0,0 +1,310 @@
+package com.matthewtole.androidrise.lib;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
+import com.matthewtole.androidrise.lib.enums.TurnState;
+
+/**
+ * Checks the move generator and make/unmake against doAction, which is what
+ * the game itself plays through, on positions reached by random play from
+ * each layout.
+ */
+public class RiseGameTest {
+
+	private static final String[] LAYOUTS = { "bridge", "cold_war",
+			"neighbours", "node_zero", "the_pit" };
+	private static final int GAMES_PER_LAYOUT = 2;
+	private static final int PLIES = 40;
+	private static final int PLIES_BETWEEN_POSITIONS = 5;
+	// Chance that random play makes a sacrifice when it could, so that they
+	// happen now and then without ending every game early.
+	private static final double SACRIFICE_CHANCE = 0.1;
+
+	private static ArrayList<RiseGame> positions;
+
+	@BeforeClass
+	public static void playGames() throws IOException {
+		LayoutStore layouts = new LayoutStore(new FileAssetSource(new File(
+				"../assets")));
+		positions = new ArrayList<RiseGame>();
+		MoveList moves = new MoveList();
+		int[] clicks = new int[Move.MAX_CLICKS];
+		for (int l = 0; l < LAYOUTS.length; l += 1) {
+			for (int g = 0; g < GAMES_PER_LAYOUT; g += 1) {
+				Random random = new Random(l * 1000 + g);
+				RiseGame game = new RiseGame();
+				game.setup(layouts.get(LAYOUTS[l]));
+				for (int ply = 0; ply < PLIES; ply += 1) {
+					if (ply % PLIES_BETWEEN_POSITIONS == 0) {
+						positions.add(new RiseGame(game));
+					}
+					long move;
+					int sacrifices = game.countSacrifices();
+					if (sacrifices > 0
+							&& random.nextDouble() < SACRIFICE_CHANCE) {
+						move = game.getSacrifice(random.nextInt(sacrifices));
+					} else if (game.generateRegularMoves(moves) > 0) {
+						move = moves.get(random.nextInt(moves.size()));
+					} else {
+						break;
+					}
+					int count = Move.clicks(move, clicks);
+					for (int c = 0; c < count; c += 1) {
+						assertTrue(Move.toString(move), click(game, clicks[c]));
+					}
+					while (game.getUpdate() != null) {
+					}
+					if (game.getWinner() != GamePlayer.UNKNOWN) {
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean click(RiseGame game, int cell) {
+		return game.doAction(RiseBoard.cellX(cell), RiseBoard.cellY(cell),
+				game.getCurrentPlayer());
+	}
+
+	private static GamePlayer other(GamePlayer player) {
+		return player == GamePlayer.RED ? GamePlayer.BLUE : GamePlayer.RED;
+	}
+
+	private static byte[] save(RiseGame game) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		game.save(new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void generatedMovesAreExactlyWhatDoActionAccepts() {
+		MoveList moves = new MoveList();
+		RiseGame after = new RiseGame();
+		for (RiseGame game : positions) {
+			HashSet<Long> generated = new HashSet<Long>();
+			game.generateMoves(moves);
+			for (int i = 0; i < moves.size(); i += 1) {
+				after.copyFrom(game);
+				after.makeMove(moves.get(i));
+				generated.add(after.getHash());
+			}
+			assertEquals(generated, clickEverything(game));
+		}
+	}
+
+	/**
+	 * The hash of every position that a complete action of up to three
+	 * touches near the board leads to.
+	 */
+	private static HashSet<Long> clickEverything(RiseGame game) {
+		int minX = RiseBoard.SIZE, minY = RiseBoard.SIZE, maxX = 0, maxY = 0;
+		for (int x = 0; x < RiseBoard.SIZE; x += 1) {
+			for (int y = 0; y < RiseBoard.SIZE; y += 1) {
+				if (!game.getTile(x, y).isBlank()) {
+					minX = Math.min(minX, x);
+					minY = Math.min(minY, y);
+					maxX = Math.max(maxX, x);
+					maxY = Math.max(maxY, y);
+				}
+			}
+		}
+		ArrayList<Integer> cells = new ArrayList<Integer>();
+		for (int x = Math.max(minX - 1, 0); x <= Math.min(maxX + 1,
+				RiseBoard.SIZE - 1); x += 1) {
+			for (int y = Math.max(minY - 1, 0); y <= Math.min(maxY + 1,
+					RiseBoard.SIZE - 1); y += 1) {
+				cells.add(RiseBoard.cell(x, y));
+			}
+		}
+
+		HashSet<Long> reached = new HashSet<Long>();
+		RiseGame[] games = { new RiseGame(), new RiseGame(), new RiseGame() };
+		clickFrom(game, game.getHash(), cells, games, 0, reached);
+		return reached;
+	}
+
+	private static void clickFrom(RiseGame game, long start,
+			ArrayList<Integer> cells, RiseGame[] games, int depth,
+			HashSet<Long> reached) {
+		RiseGame next = games[depth];
+		for (int i = 0; i < cells.size(); i += 1) {
+			next.copyFrom(game);
+			if (!click(next, cells.get(i))) {
+				continue;
+			}
+			if (next.getTurnState() == TurnState.NOTHING) {
+				if (next.getHash() != start) {
+					reached.add(next.getHash());
+				}
+			} else if (depth + 1 < games.length
+					&& next.getTurnState().ordinal() > game.getTurnState()
+							.ordinal()) {
+				clickFrom(next, start, cells, games, depth + 1, reached);
+				next.copyFrom(game);
+			}
+		}
+	}
+
+	@Test
+	public void makeMoveMatchesTouchingTheMove() {
+		MoveList moves = new MoveList();
+		int[] clicks = new int[Move.MAX_CLICKS];
+		RiseGame made = new RiseGame();
+		RiseGame touched = new RiseGame();
+		for (RiseGame game : positions) {
+			game.generateMoves(moves);
+			for (int i = 0; i < moves.size(); i += 1) {
+				long move = moves.get(i);
+				made.copyFrom(game);
+				made.makeMove(move);
+				touched.copyFrom(game);
+				int count = Move.clicks(move, clicks);
+				for (int c = 0; c < count; c += 1) {
+					assertTrue(Move.toString(move), click(touched, clicks[c]));
+				}
+				assertEquals(Move.toString(move), touched.getHash(),
+						made.getHash());
+				assertEquals(touched.getTurnState(), made.getTurnState());
+				assertEquals(touched.getCurrentPlayer(),
+						made.getCurrentPlayer());
+				assertEquals(touched.getMovesLeft(), made.getMovesLeft());
+				for (GamePlayer player : new GamePlayer[] { GamePlayer.RED,
+						GamePlayer.BLUE }) {
+					assertEquals(touched.getAvailableWorkers(player),
+							made.getAvailableWorkers(player));
+					assertEquals(touched.getTowerCount(player),
+							made.getTowerCount(player));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void unmakeMoveRestoresThePosition() throws IOException {
+		MoveList moves = new MoveList();
+		MoveList replies = new MoveList();
+		RiseGame game = new RiseGame();
+		for (RiseGame position : positions) {
+			game.copyFrom(position);
+			byte[] before = save(game);
+			long hash = game.getHash();
+			game.generateMoves(moves);
+			for (int i = 0; i < moves.size(); i += 1) {
+				game.makeMove(moves.get(i));
+				// One reply as well, to unwind more than one frame.
+				if (game.generateRegularMoves(replies) > 0) {
+					game.makeMove(replies.get(0));
+					game.unmakeMove();
+				}
+				game.unmakeMove();
+				assertEquals(Move.toString(moves.get(i)), hash, game.getHash());
+				assertArrayEquals(Move.toString(moves.get(i)), before,
+						save(game));
+			}
+		}
+	}
+
+	@Test
+	public void sacrificesCanBeCountedAndPickedWithoutListingThem() {
+		MoveList all = new MoveList();
+		MoveList split = new MoveList();
+		int checked = 0;
+		for (RiseGame game : positions) {
+			game.generateMoves(all);
+			int regular = game.generateRegularMoves(split);
+			int sacrifices = game.generateSacrifices(split);
+			assertEquals(all.size(), split.size());
+			for (int i = 0; i < all.size(); i += 1) {
+				assertEquals(all.get(i), split.get(i));
+			}
+			assertEquals(sacrifices, game.countSacrifices());
+			for (int i = 0; i < sacrifices; i += 1) {
+				assertEquals(Move.toString(split.get(regular + i)),
+						split.get(regular + i), game.getSacrifice(i));
+			}
+			checked += sacrifices;
+		}
+		assertTrue("No position had any sacrifices", checked > 0);
+	}
+
+	@Test
+	public void restoreRejectsBadMovesLeft() throws IOException {
+		byte[] saved = save(positions.get(0));
+		// After the version, the player to move and the turn state.
+		int movesLeft = 3;
+		for (int bad : new int[] { 0, 3 }) {
+			byte[] corrupt = saved.clone();
+			corrupt[movesLeft] = (byte) bad;
+			try {
+				new RiseGame().restore(new DataInputStream(
+						new ByteArrayInputStream(corrupt)));
+				fail("Restored with " + bad + " moves left");
+			} catch (IOException e) {
+				assertEquals("Bad moves left " + bad, e.getMessage());
+			}
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void actionsDoNotWaitForTheGameThread() {
+		RiseGame game = new RiseGame(positions.get(0));
+		int worker = -1;
+		for (int cell = 0; cell < RiseBoard.CELLS && worker < 0; cell += 1) {
+			if (game.getTile(RiseBoard.cellX(cell), RiseBoard.cellY(cell))
+					.isWorker(game.getCurrentPlayer())) {
+				worker = cell;
+			}
+		}
+		// Selecting and unselecting a worker, with nothing taking the
+		// updates, soon fills the queue.
+		for (int i = 0; i < 4096; i += 1) {
+			assertTrue(click(game, worker));
+		}
+		int updates = 0;
+		while (game.getUpdate() != null) {
+			updates += 1;
+		}
+		assertTrue(updates > 0 && updates < 4096);
+	}
+
+	@Test
+	public void passOnlyWhenThereIsNoMove() throws IOException {
+		RiseGame game = new RiseGame(positions.get(0));
+		long hash = game.getHash();
+		assertFalse(game.pass(game.getCurrentPlayer()));
+		assertFalse(game.pass(other(game.getCurrentPlayer())));
+		assertEquals(hash, game.getHash());
+
+		// Lone workers with no tiles left to place have nothing to do.
+		game.setup(UpdateBatchTest.parse("R,_,_,B\n"));
+		byte[] saved = save(game);
+		// After the version, player, turn state and moves left.
+		int tilesLeft = 4;
+		saved[tilesLeft] = 0;
+		saved[tilesLeft + 1] = 0;
+		game.restore(new DataInputStream(new ByteArrayInputStream(saved)));
+		GamePlayer player = game.getCurrentPlayer();
+		assertTrue(game.pass(player));
+		assertEquals(other(player), game.getCurrentPlayer());
+		assertEquals(2, game.getMovesLeft());
+	}
+}
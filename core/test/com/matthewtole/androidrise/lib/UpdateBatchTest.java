@@ -0,0 +1,67 @@
+package com.matthewtole.androidrise.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.matthewtole.androidrise.lib.enums.UpdateType;
+
+public class UpdateBatchTest {
+
+	// Red's first move fills the last space around the middle tile, so a
+	// tower goes up there as the turn ends.
+	private static final String TOWER_LAYOUT = "_,R,R\n.R,O,O\n_,R,R\n.B,O,_\n";
+
+	private final Layout layout = parse(TOWER_LAYOUT);
+	private final RiseGame game = new RiseGame();
+
+	static Layout parse(String text) {
+		byte[] bytes = text.getBytes();
+		return Layout.parse("test", bytes, bytes.length);
+	}
+
+	@Before
+	public void setUp() {
+		this.game.setup(this.layout);
+	}
+
+	private void click(int x, int y) {
+		this.game.doAction(this.layout.getLeft() + x, this.layout.getTop() + y,
+				this.game.getCurrentPlayer());
+	}
+
+	@Test
+	public void towerBuiltFollowedByMoveMade() {
+		this.click(2, 1);
+
+		UpdateBatch batch = new UpdateBatch();
+		int kept = batch.drain(this.game);
+
+		assertEquals(5, batch.size());
+		assertEquals(5, kept);
+		assertEquals(UpdateType.TOWER_BUILT, batch.get(1).type);
+		assertEquals(UpdateType.MOVE_MADE, batch.get(2).type);
+		assertEquals(UpdateType.TURN_FINISHED, batch.get(3).type);
+	}
+
+	@Test
+	public void selectionUndoneInSameBatchIsDropped() {
+		this.click(1, 0);
+		this.click(1, 0);
+
+		UpdateBatch batch = new UpdateBatch();
+		int kept = batch.drain(this.game);
+
+		assertEquals(2, batch.size());
+		assertEquals(1, kept);
+		assertNull(batch.get(0));
+		assertEquals(UpdateType.WORKER_UNSELECTED, batch.get(1).type);
+	}
+
+	@Test
+	public void emptyGame() {
+		assertEquals(0, new UpdateBatch().drain(this.game));
+	}
+}
@@ -1,22 +1,99 @@
 package com.matthewtole.androidrise;
 
 
+import java.io.IOException;
+
 import android.app.Activity;
 import android.os.Bundle;
 import android.view.Window;
 import android.view.WindowManager;
 
+import com.matthewtole.androidrise.game.AndroidLogger;
+import com.matthewtole.androidrise.game.Autosave;
 import com.matthewtole.androidrise.game.GameView;
+import com.matthewtole.androidrise.game.Layouts;
+import com.matthewtole.androidrise.game.SpriteManager;
+import com.matthewtole.androidrise.lib.Log;
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
 
 public class MainActivity extends Activity {
+
+    public static final String EXTRA_COMPUTER_PLAYER = "computer_player";
+    public static final String EXTRA_ENGINE = "engine";
+    public static final String EXTRA_LAYOUT = "layout";
+    public static final String EXTRA_RESUME = "resume";
+
+    private static final String TAG = MainActivity.class.getSimpleName();
+    private static final String STATE_GAME = "game";
+
+    private GameView gameView;
+
     /** Called when the activity is first created. */
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        Log.setLogger(new AndroidLogger());
         requestWindowFeature(Window.FEATURE_NO_TITLE);
         getWindow().setFlags(WindowManager.LayoutParams.FLAG_FULLSCREEN, 
                 WindowManager.LayoutParams.FLAG_FULLSCREEN);
-        setContentView(new GameView(this));
+
+        // Carry on from where the activity left off if it was recreated, or
+        // from the autosave if asked to, and start a new game otherwise.
+        byte[] state = null;
+        if (savedInstanceState != null) {
+            state = savedInstanceState.getByteArray(STATE_GAME);
+        } else if (getIntent().getBooleanExtra(EXTRA_RESUME, false)) {
+            state = Autosave.read(this);
+        }
+        if (state != null) {
+            try {
+                this.gameView = new GameView(this, state);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not resume game: " + e.getMessage());
+            }
+        }
+        if (this.gameView == null) {
+            GamePlayer computerPlayer = GamePlayer.UNKNOWN;
+            if (getIntent().getBooleanExtra(EXTRA_COMPUTER_PLAYER, false)) {
+                computerPlayer = GamePlayer.BLUE;
+            }
+            String layout = getIntent().getStringExtra(EXTRA_LAYOUT);
+            if (layout == null) {
+                layout = Layouts.DEFAULT;
+            }
+            int engine = getIntent().getIntExtra(EXTRA_ENGINE,
+                    GameView.ENGINE_ALPHA_BETA);
+            this.gameView = new GameView(this, computerPlayer, engine, layout);
+        }
+        setContentView(this.gameView);
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putByteArray(STATE_GAME, this.gameView.saveState());
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (this.gameView.isGameOver()) {
+            Autosave.delete(this);
+        } else {
+            Autosave.write(this, this.gameView.saveState());
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        SpriteManager.getInstance(this).onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        SpriteManager.getInstance(this).onTrimMemory(TRIM_MEMORY_COMPLETE);
     }
 }
 
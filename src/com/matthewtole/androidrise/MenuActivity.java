@@ -1,19 +1,140 @@
 package com.matthewtole.androidrise;
 
+import java.io.IOException;
+
 import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
 import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+import com.matthewtole.androidrise.game.Autosave;
+import com.matthewtole.androidrise.game.GameView;
+import com.matthewtole.androidrise.game.Layouts;
+import com.matthewtole.androidrise.game.SpriteManager;
+import com.matthewtole.androidrise.lib.Log;
 
 public class MenuActivity extends Activity {
+
+	private static final String TAG = MenuActivity.class.getSimpleName();
+
+	// By GameView engine.
+	private static final String[] ENGINE_NAMES = { "alpha-beta",
+			"Monte Carlo" };
+
+	private TextView loadingText;
+	private Button layoutButton;
+	private Button engineButton;
+	private Button continueButton;
+
+	private String[] layouts = { Layouts.DEFAULT };
+	private int layoutIndex = 0;
+	private int engine = GameView.ENGINE_ALPHA_BETA;
+
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		setContentView(R.layout.menu);
+		this.loadingText = (TextView) findViewById(R.id.loading_text);
+		this.layoutButton = (Button) findViewById(R.id.layout_button);
+		this.engineButton = (Button) findViewById(R.id.engine_button);
+		this.continueButton = (Button) findViewById(R.id.continue_button);
+
+		// Only lists the folder, the layouts themselves are read when played.
+		try {
+			String[] names = Layouts.getInstance(this).getNames();
+			if (names.length > 0) {
+				this.layouts = names;
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "Could not list layouts: " + e.getMessage());
+		}
+		for (int i = 0; i < this.layouts.length; i += 1) {
+			if (this.layouts[i].equals(Layouts.DEFAULT)) {
+				this.layoutIndex = i;
+			}
+		}
+		this.showLayout();
+		this.showEngine();
+
+		SpriteManager sprites = SpriteManager.getInstance(this);
+		if (sprites.isLoaded()) {
+			this.loadingText.setVisibility(View.GONE);
+		} else {
+			sprites.setLoadListener(new SpriteManager.LoadListener() {
+				public void onProgress(final int loaded, final int total) {
+					runOnUiThread(new Runnable() {
+						public void run() {
+							showProgress(loaded, total);
+						}
+					});
+				}
+			});
+			sprites.preload();
+		}
+	}
+
+	@Override
+	protected void onResume() {
+		super.onResume();
+		this.continueButton.setVisibility(Autosave.exists(this) ? View.VISIBLE
+				: View.GONE);
+	}
+
+	@Override
+	protected void onDestroy() {
+		SpriteManager.getInstance(this).setLoadListener(null);
+		super.onDestroy();
+	}
+
+	private void showProgress(int loaded, int total) {
+		if (loaded >= total) {
+			this.loadingText.setVisibility(View.GONE);
+		} else {
+			this.loadingText.setText("Loading " + (loaded * 100 / total)
+					+ "%");
+		}
 	}
 	
+	private void showLayout() {
+		this.layoutButton.setText("Layout: "
+				+ this.layouts[this.layoutIndex].replace('_', ' '));
+	}
+
+	public void layoutClicked(View v) {
+		this.layoutIndex = (this.layoutIndex + 1) % this.layouts.length;
+		this.showLayout();
+	}
+
+	private void showEngine() {
+		this.engineButton.setText("Computer: " + ENGINE_NAMES[this.engine]);
+	}
+
+	public void engineClicked(View v) {
+		this.engine = (this.engine + 1) % GameView.ENGINES;
+		this.showEngine();
+	}
+
+	public void continueClicked(View v) {
+		Intent intent = new Intent(this, MainActivity.class);
+		intent.putExtra(MainActivity.EXTRA_RESUME, true);
+		startActivity(intent);
+	}
+
 	public void playClicked(View v) {
 		Intent intent = new Intent(this, MainActivity.class);
+		intent.putExtra(MainActivity.EXTRA_LAYOUT,
+				this.layouts[this.layoutIndex]);
+		startActivity(intent);
+	}
+
+	public void playComputerClicked(View v) {
+		Intent intent = new Intent(this, MainActivity.class);
+		intent.putExtra(MainActivity.EXTRA_COMPUTER_PLAYER, true);
+		intent.putExtra(MainActivity.EXTRA_ENGINE, this.engine);
+		intent.putExtra(MainActivity.EXTRA_LAYOUT,
+				this.layouts[this.layoutIndex]);
 		startActivity(intent);
 	}
 }
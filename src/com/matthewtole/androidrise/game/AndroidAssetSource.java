@@ -0,0 +1,28 @@
+package com.matthewtole.androidrise.game;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.content.res.AssetManager;
+
+import com.matthewtole.androidrise.lib.AssetSource;
+
+/**
+ * Reads assets packaged with the app.
+ */
+public class AndroidAssetSource implements AssetSource {
+
+	private AssetManager assets;
+
+	public AndroidAssetSource(AssetManager assets) {
+		this.assets = assets;
+	}
+
+	public InputStream open(String path) throws IOException {
+		return this.assets.open(path);
+	}
+
+	public String[] list(String path) throws IOException {
+		return this.assets.list(path);
+	}
+}
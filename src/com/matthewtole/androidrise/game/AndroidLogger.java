@@ -0,0 +1,19 @@
+package com.matthewtole.androidrise.game;
+
+import android.util.Log;
+
+import com.matthewtole.androidrise.lib.Logger;
+
+/**
+ * Sends log messages from the rules engine to logcat.
+ */
+public class AndroidLogger implements Logger {
+
+	public void debug(String tag, String message) {
+		Log.d(tag, message);
+	}
+
+	public void error(String tag, String message) {
+		Log.e(tag, message);
+	}
+}
@@ -0,0 +1,89 @@
+package com.matthewtole.androidrise.game;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * The game in progress, kept in a file in the app's private storage so that
+ * it can be carried on from the menu after the app has been closed.
+ */
+public class Autosave {
+
+	private static final String TAG = Autosave.class.getSimpleName();
+
+	private static final String FILE_NAME = "autosave.dat";
+
+	public static boolean exists(Context context) {
+		return file(context).exists();
+	}
+
+	/**
+	 * Writes the state to a temporary file first and then renames it, so
+	 * that being killed part way through never leaves half a save behind.
+	 */
+	public static void write(Context context, byte[] state) {
+		File file = file(context);
+		File temp = new File(file.getPath() + ".tmp");
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(temp);
+			out.write(state);
+			out.close();
+			out = null;
+			if (!temp.renameTo(file)) {
+				Log.e(TAG, "Could not rename " + temp + " to " + file);
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "Could not write autosave: " + e.getMessage());
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the saved state, or null if there is none or it could not be
+	 * read.
+	 */
+	public static byte[] read(Context context) {
+		File file = file(context);
+		if (!file.exists()) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			byte[] state = new byte[(int) file.length()];
+			in = new DataInputStream(new FileInputStream(file));
+			in.readFully(state);
+			return state;
+		} catch (IOException e) {
+			Log.e(TAG, "Could not read autosave: " + e.getMessage());
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	public static void delete(Context context) {
+		file(context).delete();
+	}
+
+	private static File file(Context context) {
+		return new File(context.getFilesDir(), FILE_NAME);
+	}
+}
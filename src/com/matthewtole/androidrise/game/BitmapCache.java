@@ -0,0 +1,117 @@
+package com.matthewtole.androidrise.game;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+
+/**
+ * Bitmaps by name, kept within a budget in bytes by dropping the least
+ * recently used. Dropped bitmaps are held on to for a while so that a later
+ * decode can write into their memory through BitmapFactory.Options.inBitmap
+ * rather than allocating more.
+ *
+ * Nothing is ever recycled here, since whoever last drew a bitmap may still
+ * be drawing it, so callers should get a bitmap again each time they need
+ * it rather than keeping it.
+ */
+public class BitmapCache {
+
+	private final LinkedHashMap<String, Bitmap> bitmaps = new LinkedHashMap<String, Bitmap>(
+			16, 0.75f, true);
+	private final ArrayList<Bitmap> reusable = new ArrayList<Bitmap>();
+
+	private final int maxBytes;
+	private int budget;
+	private int bytes = 0;
+	private int reusableBytes = 0;
+
+	public BitmapCache(int maxBytes) {
+		this.maxBytes = maxBytes;
+		this.budget = maxBytes;
+	}
+
+	public synchronized Bitmap get(String name) {
+		return this.bitmaps.get(name);
+	}
+
+	public synchronized void put(String name, Bitmap bitmap) {
+		// Back to the full budget once memory is needed again.
+		this.budget = this.maxBytes;
+		Bitmap old = this.bitmaps.put(name, bitmap);
+		if (old != null) {
+			this.bytes -= sizeOf(old);
+		}
+		this.bytes += sizeOf(bitmap);
+		this.trimTo(this.budget);
+	}
+
+	/**
+	 * Takes a dropped bitmap that a decode of the given size and config can
+	 * write into, or returns null if there is none.
+	 */
+	public synchronized Bitmap takeReusable(int width, int height,
+			Bitmap.Config config) {
+		for (int i = 0; i < this.reusable.size(); i += 1) {
+			Bitmap bitmap = this.reusable.get(i);
+			if (canReuse(bitmap, width, height, config)) {
+				this.reusable.remove(i);
+				this.reusableBytes -= sizeOf(bitmap);
+				return bitmap;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Shrinks the cache as the system asks, down to nothing once the game is
+	 * in the background.
+	 */
+	public synchronized void onTrimMemory(int level) {
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+			this.budget = 0;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			this.budget = this.maxBytes / 2;
+		} else {
+			return;
+		}
+		this.trimTo(this.budget);
+		this.reusable.clear();
+		this.reusableBytes = 0;
+	}
+
+	private void trimTo(int size) {
+		Iterator<Map.Entry<String, Bitmap>> entries = this.bitmaps.entrySet()
+				.iterator();
+		while (this.bytes > size && entries.hasNext()) {
+			Bitmap bitmap = entries.next().getValue();
+			entries.remove();
+			this.bytes -= sizeOf(bitmap);
+			if (size > 0 && bitmap.isMutable()) {
+				this.reusable.add(bitmap);
+				this.reusableBytes += sizeOf(bitmap);
+			}
+		}
+		// Keep the dropped bitmaps to no more than half the budget.
+		while (this.reusableBytes > size / 2 && !this.reusable.isEmpty()) {
+			this.reusableBytes -= sizeOf(this.reusable.remove(0));
+		}
+	}
+
+	/**
+	 * Before KitKat a decode can only write into a bitmap of exactly the same
+	 * size, and the game is built for older versions than that.
+	 */
+	private static boolean canReuse(Bitmap bitmap, int width, int height,
+			Bitmap.Config config) {
+		return bitmap.getConfig() == config && bitmap.getWidth() == width
+				&& bitmap.getHeight() == height;
+	}
+
+	public static int sizeOf(Bitmap bitmap) {
+		return bitmap.getRowBytes() * bitmap.getHeight();
+	}
+}
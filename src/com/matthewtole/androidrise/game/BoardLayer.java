@@ -0,0 +1,109 @@
+package com.matthewtole.androidrise.game;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Rect;
+
+import com.matthewtole.androidrise.lib.RiseBoard;
+
+/**
+ * The background and tiles drawn once into an offscreen bitmap, which is
+ * then copied to the screen each frame with the moving pieces drawn on top.
+ *
+ * The whole layer is redrawn when the board is panned, the screen changes
+ * size or the surface is changed (see invalidate). When tiles are added only
+ * the area under the new tiles is redrawn.
+ */
+public class BoardLayer {
+
+	private final SpriteManager sprites;
+
+	private Bitmap bitmap;
+	private Canvas canvas;
+	// Cleared from the UI thread, read and set by the render thread.
+	private volatile boolean valid = false;
+	private float offsetX = 0;
+	private float offsetY = 0;
+	private int tileCount = 0;
+
+	private final Rect dirty = new Rect();
+
+	public BoardLayer(SpriteManager sprites) {
+		this.sprites = sprites;
+	}
+
+	/**
+	 * Has the whole layer redrawn on the next frame. Safe to call from any
+	 * thread.
+	 */
+	public void invalidate() {
+		this.valid = false;
+	}
+
+	public void draw(Canvas canvas, Scene scene) {
+		if (this.bitmap == null || this.bitmap.getWidth() != canvas.getWidth()
+				|| this.bitmap.getHeight() != canvas.getHeight()) {
+			if (this.bitmap != null) {
+				this.bitmap.recycle();
+			}
+			this.bitmap = Bitmap.createBitmap(canvas.getWidth(),
+					canvas.getHeight(), Bitmap.Config.RGB_565);
+			this.canvas = new Canvas(this.bitmap);
+			this.valid = false;
+		}
+
+		if (!this.valid || scene.offsetX != this.offsetX
+				|| scene.offsetY != this.offsetY) {
+			this.offsetX = scene.offsetX;
+			this.offsetY = scene.offsetY;
+			this.tileCount = scene.tileCount;
+			// Set before drawing so an invalidate that comes in meanwhile
+			// is not lost.
+			this.valid = true;
+			this.redraw(scene, null);
+		} else if (scene.tileCount > this.tileCount) {
+			this.dirty.setEmpty();
+			for (int i = this.tileCount; i < scene.tileCount; i += 1) {
+				this.addTileBounds(scene.tileCells[i]);
+			}
+			this.tileCount = scene.tileCount;
+			this.redraw(scene, this.dirty);
+		}
+
+		canvas.drawBitmap(this.bitmap, 0, 0, null);
+	}
+
+	private void addTileBounds(int cell) {
+		int x = RiseBoard.cellX(cell);
+		int y = RiseBoard.cellY(cell);
+		int left = (int) this.offsetX + Common.TILE_WIDTH * x;
+		int top = (int) this.offsetY + Common.TILE_HEIGHT_THREEQUARTERS * y;
+		if (y % 2 == 1) {
+			left += Common.TILE_WIDTH_HALF;
+		}
+		this.dirty.union(left - 1, top - 1, left + Common.TILE_WIDTH + 1, top
+				+ Common.TILE_HEIGHT + 1);
+	}
+
+	private void redraw(Scene scene, Rect clip) {
+		this.canvas.save();
+		if (clip != null) {
+			this.canvas.clipRect(clip);
+		}
+		this.canvas.drawColor(Color.BLACK);
+		Bitmap background = this.sprites.getBitmap("background");
+		if (background != null) {
+			for (int x = 0; x < this.bitmap.getWidth(); x += background
+					.getWidth()) {
+				for (int y = 0; y < this.bitmap.getHeight(); y += background
+						.getHeight()) {
+					this.canvas.drawBitmap(background, x, y, null);
+				}
+			}
+		}
+		this.canvas.translate(this.offsetX, this.offsetY);
+		scene.tiles.draw(this.canvas, this.sprites);
+		this.canvas.restore();
+	}
+}
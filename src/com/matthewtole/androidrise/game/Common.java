@@ -1,12 +1,14 @@
 package com.matthewtole.androidrise.game;
 
+import com.matthewtole.androidrise.lib.Geometry;
+
 public class Common {
 	
 	public static final int FPS = 30;
 	
-	public static final int TILE_HEIGHT = 100;
-	public static final int TILE_WIDTH = 88;
-	public static final int TILE_HEIGHT_HALF = TILE_HEIGHT / 2;
-	public static final int TILE_HEIGHT_THREEQUARTERS = (TILE_HEIGHT / 4) * 3;
-	public static final int TILE_WIDTH_HALF = TILE_WIDTH / 2;	
+	public static final int TILE_HEIGHT = Geometry.TILE_HEIGHT;
+	public static final int TILE_WIDTH = Geometry.TILE_WIDTH;
+	public static final int TILE_HEIGHT_HALF = Geometry.TILE_HEIGHT_HALF;
+	public static final int TILE_HEIGHT_THREEQUARTERS = Geometry.TILE_HEIGHT_THREEQUARTERS;
+	public static final int TILE_WIDTH_HALF = Geometry.TILE_WIDTH_HALF;
 }
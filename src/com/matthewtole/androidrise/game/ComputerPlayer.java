@@ -0,0 +1,104 @@
+package com.matthewtole.androidrise.game;
+
+import android.util.Log;
+
+import com.matthewtole.androidrise.lib.Move;
+import com.matthewtole.androidrise.lib.RiseGame;
+import com.matthewtole.androidrise.lib.ai.MoveSearch;
+import com.matthewtole.androidrise.lib.enums.GamePlayer;
+
+/**
+ * Plays one side of the game. Each search runs on this thread against a copy
+ * of the game, and the chosen move is handed back to the GameView on the UI
+ * thread to be played like a sequence of touches.
+ */
+public class ComputerPlayer extends Thread {
+
+	private static final String TAG = ComputerPlayer.class.getSimpleName();
+
+	private static final long THINK_TIME = 2000;
+
+	private GameView gameView;
+	private GamePlayer player;
+	private MoveSearch search;
+
+	private RiseGame position = null;
+	private boolean thinking = false;
+	private volatile boolean isRunning = false;
+
+	public ComputerPlayer(GameView gameView, GamePlayer player,
+			MoveSearch search) {
+		super();
+		this.gameView = gameView;
+		this.player = player;
+		this.search = search;
+	}
+
+	public GamePlayer getPlayer() {
+		return this.player;
+	}
+
+	/**
+	 * Starts thinking about the current position. The game is copied, so it
+	 * can carry on being used by the caller.
+	 */
+	public synchronized void think(RiseGame game) {
+		this.position = new RiseGame(game);
+		this.thinking = true;
+		this.notify();
+	}
+
+	public synchronized boolean isThinking() {
+		return this.thinking;
+	}
+
+	private synchronized void finished() {
+		this.thinking = false;
+	}
+
+	@Override
+	public void run() {
+		Log.d(TAG, "Starting computer player");
+
+		while (this.isRunning) {
+			RiseGame game;
+			synchronized (this) {
+				while (this.isRunning && this.position == null) {
+					try {
+						this.wait();
+					} catch (InterruptedException e) {
+					}
+				}
+				game = this.position;
+				this.position = null;
+			}
+			if (!this.isRunning) {
+				break;
+			}
+
+			final long move = this.search.findMove(game, THINK_TIME);
+			Log.d(TAG, "Playing " + Move.toString(move));
+
+			this.gameView.post(new Runnable() {
+				public void run() {
+					finished();
+					gameView.playComputerMove(move);
+				}
+			});
+		}
+	}
+
+	public void setRunning(boolean running) {
+		this.isRunning = running;
+		if (!running) {
+			this.search.stop();
+			synchronized (this) {
+				this.notify();
+			}
+		}
+	}
+
+	public boolean isRunning() {
+		return this.isRunning;
+	}
+}
@@ -0,0 +1,58 @@
+package com.matthewtole.androidrise.game;
+
+import android.graphics.Canvas;
+
+/**
+ * A list of sprites to draw and where to draw them, filled in by the pieces
+ * during an update and drawn later by the render loop.
+ */
+public class DrawList {
+
+	private int[] sprites;
+	private float[] xs;
+	private float[] ys;
+	private int size = 0;
+
+	public DrawList() {
+		this.sprites = new int[64];
+		this.xs = new float[64];
+		this.ys = new float[64];
+	}
+
+	public void add(int sprite, float x, float y) {
+		if (this.size == this.sprites.length) {
+			this.grow();
+		}
+		this.sprites[this.size] = sprite;
+		this.xs[this.size] = x;
+		this.ys[this.size] = y;
+		this.size += 1;
+	}
+
+	public void clear() {
+		this.size = 0;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public void draw(Canvas canvas, SpriteManager sprites) {
+		for (int i = 0; i < this.size; i += 1) {
+			sprites.draw(canvas, this.sprites[i], this.xs[i], this.ys[i]);
+		}
+	}
+
+	private void grow() {
+		int length = this.sprites.length * 2;
+		int[] sprites = new int[length];
+		float[] xs = new float[length];
+		float[] ys = new float[length];
+		System.arraycopy(this.sprites, 0, sprites, 0, this.size);
+		System.arraycopy(this.xs, 0, xs, 0, this.size);
+		System.arraycopy(this.ys, 0, ys, 0, this.size);
+		this.sprites = sprites;
+		this.xs = xs;
+		this.ys = ys;
+	}
+}
@@ -0,0 +1,145 @@
+package com.matthewtole.androidrise.game;
+
+import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * Times each phase of the game thread's frames over the last SAMPLES frames
+ * it ran, and counts frames, skipped frames and garbage collections. Only
+ * used from the game thread, apart from snapshots.
+ */
+public class FrameStats {
+
+	public static final int FRAME = 0;
+	public static final int UPDATE = 1;
+	public static final int DRAIN = 2;
+	public static final int PUBLISH = 3;
+	public static final int LOCK = 4;
+	public static final int BOARD = 5;
+	public static final int PIECES = 6;
+	public static final int INTERFACE = 7;
+	public static final int POST = 8;
+	public static final int PHASES = 9;
+
+	private static final String[] NAMES = { "frame", "update", "drain",
+			"publish", "lock", "board", "pieces", "interface", "post" };
+
+	private static final int SAMPLES = 256;
+	private static final long SUMMARY_PERIOD = 500000000L;
+
+	private final long[][] samples = new long[PHASES][SAMPLES];
+	private final int[] recorded = new int[PHASES];
+	private final long[] started = new long[PHASES];
+	private final long[] sorted = new long[SAMPLES];
+
+	private long frames = 0;
+	private long skippedFrames = 0;
+	private long droppedSteps = 0;
+	private long collections = 0;
+	// Cleared by the garbage collector, which is how collections are counted.
+	private WeakReference<Object> gcSentinel = new WeakReference<Object>(
+			new Object());
+
+	private final String[] lines = new String[PHASES + 1];
+	private long lastSummary = 0;
+
+	public void begin(int phase) {
+		this.started[phase] = System.nanoTime();
+	}
+
+	public void end(int phase) {
+		this.record(phase, System.nanoTime() - this.started[phase]);
+	}
+
+	public void record(int phase, long nanos) {
+		this.samples[phase][this.recorded[phase] % SAMPLES] = nanos;
+		this.recorded[phase] += 1;
+	}
+
+	/**
+	 * Counts update steps that ran without a frame being drawn after them,
+	 * and steps lost because the thread fell too far behind.
+	 */
+	public void stepsSkipped(int skipped, int dropped) {
+		this.skippedFrames += skipped;
+		this.droppedSteps += dropped;
+	}
+
+	public void frameFinished() {
+		this.frames += 1;
+		if (this.gcSentinel.get() == null) {
+			this.collections += 1;
+			this.gcSentinel = new WeakReference<Object>(new Object());
+		}
+	}
+
+	/**
+	 * The given percentile of a phase's recent times, in nanoseconds.
+	 */
+	public long percentile(int phase, int percent) {
+		int count = Math.min(this.recorded[phase], SAMPLES);
+		if (count == 0) {
+			return 0;
+		}
+		System.arraycopy(this.samples[phase], 0, this.sorted, 0, count);
+		Arrays.sort(this.sorted, 0, count);
+		return this.sorted[Math.min(count - 1, count * percent / 100)];
+	}
+
+	/**
+	 * Draws the summary as lines of text, refreshing it twice a second.
+	 */
+	public void draw(Canvas canvas, Paint paint, float x, float y,
+			float lineHeight) {
+		long now = System.nanoTime();
+		if (this.lines[0] == null || now - this.lastSummary > SUMMARY_PERIOD) {
+			this.summarise();
+			this.lastSummary = now;
+		}
+		for (int i = 0; i < this.lines.length; i += 1) {
+			canvas.drawText(this.lines[i], x, y + lineHeight * i, paint);
+		}
+	}
+
+	/**
+	 * A copy of the stats as they are now, which another thread can dump
+	 * while this one carries on recording.
+	 */
+	public FrameStats snapshot() {
+		FrameStats copy = new FrameStats();
+		for (int phase = 0; phase < PHASES; phase += 1) {
+			System.arraycopy(this.samples[phase], 0, copy.samples[phase], 0,
+					SAMPLES);
+		}
+		System.arraycopy(this.recorded, 0, copy.recorded, 0, PHASES);
+		copy.frames = this.frames;
+		copy.skippedFrames = this.skippedFrames;
+		copy.droppedSteps = this.droppedSteps;
+		copy.collections = this.collections;
+		return copy;
+	}
+
+	public void dump(PrintWriter out) {
+		this.summarise();
+		for (String line : this.lines) {
+			out.println(line);
+		}
+	}
+
+	private void summarise() {
+		for (int phase = 0; phase < PHASES; phase += 1) {
+			this.lines[phase] = String.format(
+					"%-9s p50 %6.2f p95 %6.2f p99 %6.2f ms", NAMES[phase],
+					this.percentile(phase, 50) / 1e6,
+					this.percentile(phase, 95) / 1e6,
+					this.percentile(phase, 99) / 1e6);
+		}
+		this.lines[PHASES] = "frames " + this.frames + " skipped "
+				+ this.skippedFrames + " dropped " + this.droppedSteps
+				+ " gc " + this.collections;
+	}
+}
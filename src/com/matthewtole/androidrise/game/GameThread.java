@@ -1,21 +1,56 @@
 package com.matthewtole.androidrise.game;
 
 import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.SurfaceHolder;
 
+/**
+ * Runs the game on its own Looper. Frames are started by display vsync
+ * through Choreographer where it exists, or by a timer on older versions.
+ * Each frame runs as many fixed length updates as the time since the last
+ * frame covers, then draws once if anything changed. The surface is only
+ * locked while drawing, and the thread stops asking for frames while the
+ * view is idle.
+ */
 public class GameThread extends Thread {
-	
+
 	private static final String TAG = GameThread.class.getSimpleName();
 
-	private final static int MAX_FPS = (Common.FPS * 2);
+	private final static long STEP_NANOS = 1000000000L / Common.FPS;
 	private final static int MAX_FRAME_SKIPS = 5;
-	private final static int FRAME_PERIOD = 1000 / MAX_FPS;	
-	
+	private final static long FALLBACK_FRAME_MILLIS = 1000 / (Common.FPS * 2);
+
 	private SurfaceHolder surfaceHolder;
 	private GameView gamePanel;
-	private boolean isRunning = false;	
-	
+	private volatile boolean isRunning = false;
+
+	private Handler handler;
+	private VsyncFrames vsync;
+	private boolean framePending = false;
+	private long lastFrameNanos = 0;
+	private long accumulatedNanos = 0;
+	// Set when woken, until a frame has been drawn showing the change.
+	private boolean changed = true;
+	private volatile boolean wakePosted = false;
+
+	private final Runnable fallbackFrame = new Runnable() {
+		public void run() {
+			GameThread.this.doFrame(System.nanoTime());
+		}
+	};
+
+	private final Runnable wakeFrame = new Runnable() {
+		public void run() {
+			GameThread.this.wakePosted = false;
+			GameThread.this.changed = true;
+			GameThread.this.scheduleFrame();
+		}
+	};
+
 	public GameThread(SurfaceHolder surfaceHolder, GameView gamePanel) {
 		super();
 		this.surfaceHolder = surfaceHolder;
@@ -24,70 +59,131 @@ public class GameThread extends Thread {
 
 	@Override
 	public void run() {
-		Canvas canvas;
-		isRunning = true;
 		Log.d(TAG, "Starting game loop");
+		Looper.prepare();
+		synchronized (this) {
+			this.handler = new Handler();
+		}
+		if (!this.isRunning) {
+			return;
+		}
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			this.vsync = new VsyncFrames(this);
+		}
+		this.scheduleFrame();
+		Looper.loop();
+		Log.d(TAG, "Stopped game loop");
+	}
 
-		long beginTime;		// the time when the cycle begun
-		long timeDiff;		// the time it took for the cycle to execute
-		int sleepTime;		// ms to sleep (<0 if we're behind)
-		int framesSkipped;	// number of frames being skipped 
-		boolean updateFrame = true;
-
-		sleepTime = 0;
-
-		while (this.isRunning) {
-			canvas = null;
-			// try locking the canvas for exclusive pixel editing
-			// in the surface
-			try {
-				canvas = this.surfaceHolder.lockCanvas();
-				synchronized (surfaceHolder) {
-					beginTime = System.currentTimeMillis();
-					framesSkipped = 0;	// resetting the frames skipped
-					// update game state
-					if (updateFrame) {
-						this.gamePanel.update();
-						updateFrame = ! updateFrame;
-					}
-					// render state to the screen
-					// draws the canvas on the panel
-					this.gamePanel.render(canvas);
-					// calculate how long did the cycle take
-					timeDiff = System.currentTimeMillis() - beginTime;
-					// calculate sleep time
-					sleepTime = (int)(FRAME_PERIOD - timeDiff);
-
-					if (sleepTime > 0) {
-						// if sleepTime > 0 we're OK
-						try {
-							// send the thread to sleep for a short period
-							// very useful for battery saving
-							Thread.sleep(sleepTime);
-						} catch (InterruptedException e) {}
-					}
+	private void scheduleFrame() {
+		if (this.framePending || !this.isRunning) {
+			return;
+		}
+		this.framePending = true;
+		if (this.vsync != null) {
+			this.vsync.post();
+		} else {
+			this.handler.postDelayed(this.fallbackFrame, FALLBACK_FRAME_MILLIS);
+		}
+	}
 
-					while (sleepTime < 0 && framesSkipped < MAX_FRAME_SKIPS) {
-						// we need to catch up
-						// update without rendering
-						this.gamePanel.update();
-						// add frame period to check if in next frame
-						sleepTime += FRAME_PERIOD;
-						framesSkipped++;
-					}
-				}
-			} finally {
-				// in case of an exception the surface is not left in
-				// an inconsistent state
-				if (canvas != null) {
-					surfaceHolder.unlockCanvasAndPost(canvas);
-				}
-			}	// end finally
+	void doFrame(long frameTimeNanos) {
+		this.framePending = false;
+		if (!this.isRunning) {
+			return;
+		}
+		FrameStats stats = this.gamePanel.getFrameStats();
+		stats.begin(FrameStats.FRAME);
+
+		long elapsed = this.lastFrameNanos == 0 ? 0 : Math.max(frameTimeNanos
+				- this.lastFrameNanos, 0);
+		this.lastFrameNanos = frameTimeNanos;
+		long limit = MAX_FRAME_SKIPS * STEP_NANOS;
+		int dropped = 0;
+		if (elapsed > limit) {
+			dropped = (int) ((elapsed - limit) / STEP_NANOS);
+			elapsed = limit;
+		}
+		this.accumulatedNanos += elapsed;
+
+		int steps = 0;
+		while (this.accumulatedNanos >= STEP_NANOS) {
+			stats.begin(FrameStats.UPDATE);
+			this.gamePanel.update();
+			stats.end(FrameStats.UPDATE);
+			this.accumulatedNanos -= STEP_NANOS;
+			this.changed = true;
+			steps += 1;
+		}
+
+		if (this.changed) {
+			this.changed = false;
+			stats.begin(FrameStats.PUBLISH);
+			this.gamePanel.publishScene();
+			stats.end(FrameStats.PUBLISH);
+			this.draw(stats);
+		}
+
+		stats.stepsSkipped(Math.max(steps - 1, 0), dropped);
+		stats.end(FrameStats.FRAME);
+		stats.frameFinished();
+
+		if (this.gamePanel.isIdle()) {
+			this.lastFrameNanos = 0;
+			this.accumulatedNanos = 0;
+		} else {
+			this.scheduleFrame();
+		}
+	}
+
+	private void draw(FrameStats stats) {
+		Canvas canvas = null;
+		try {
+			stats.begin(FrameStats.LOCK);
+			canvas = this.surfaceHolder.lockCanvas();
+			stats.end(FrameStats.LOCK);
+			if (canvas != null) {
+				this.gamePanel.render(canvas);
+			}
+		} finally {
+			if (canvas != null) {
+				stats.begin(FrameStats.POST);
+				this.surfaceHolder.unlockCanvasAndPost(canvas);
+				stats.end(FrameStats.POST);
+			}
+		}
+	}
+
+	/**
+	 * Starts drawing frames again after the view has changed. Safe to call
+	 * from any thread.
+	 */
+	public void wake() {
+		if (this.wakePosted) {
+			return;
+		}
+		synchronized (this) {
+			if (this.handler != null && this.isRunning) {
+				this.wakePosted = true;
+				this.handler.post(this.wakeFrame);
+			}
 		}
 	}
 
 	public void setRunning(boolean running) {
-		this.isRunning = running;
+		synchronized (this) {
+			this.isRunning = running;
+			if (!running && this.handler != null) {
+				this.handler.post(new Runnable() {
+					public void run() {
+						if (GameThread.this.vsync != null) {
+							GameThread.this.vsync.cancel();
+						}
+						Looper.myLooper().quit();
+					}
+				});
+			}
+		}
 	}
 
 	public boolean isRunning() {
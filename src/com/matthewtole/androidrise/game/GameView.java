@@ -1,19 +1,31 @@
 package com.matthewtole.androidrise.game;
 
-import java.util.ArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Date;
 import java.util.HashMap;
 
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Paint.Style;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.os.Build;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
+import android.view.ViewConfiguration;
 import android.widget.Toast;
 
 import com.matthewtole.androidrise.game.pieces.Tile;
@@ -21,42 +33,88 @@ import com.matthewtole.androidrise.game.pieces.Tower;
 import com.matthewtole.androidrise.game.pieces.Worker;
 import com.matthewtole.androidrise.lib.GameUpdate;
 import com.matthewtole.androidrise.lib.GridLocation;
+import com.matthewtole.androidrise.lib.Layout;
+import com.matthewtole.androidrise.lib.Move;
+import com.matthewtole.androidrise.lib.RiseBoard;
 import com.matthewtole.androidrise.lib.RiseGame;
+import com.matthewtole.androidrise.lib.RiseTile;
+import com.matthewtole.androidrise.lib.ai.AlphaBetaSearch;
+import com.matthewtole.androidrise.lib.ai.MonteCarloSearch;
+import com.matthewtole.androidrise.lib.ai.MoveSearch;
 import com.matthewtole.androidrise.lib.ScreenLocation;
+import com.matthewtole.androidrise.lib.UpdateBatch;
 import com.matthewtole.androidrise.lib.Utils;
 import com.matthewtole.androidrise.lib.enums.GamePlayer;
+import com.matthewtole.androidrise.lib.enums.TurnState;
 
 public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 
+	// The searches the computer can play with.
+	public static final int ENGINE_ALPHA_BETA = 0;
+	public static final int ENGINE_MONTE_CARLO = 1;
+	public static final int ENGINES = 2;
+
 	private static final String TAG = GameView.class.getSimpleName();
 
 	private final float DRAG_START_AMOUNT = 30;
 
+	// Cells drawn past each edge of the screen, to cover tall towers, pieces
+	// still moving into their cell, and panning between update and render.
+	private static final int CULL_MARGIN = 2;
+
+	// Bumped whenever the layout of what saveState writes changes, not
+	// counting the game itself, which has its own version.
+	private static final int STATE_VERSION = 2;
+
 	private GameThread thread;
 	private int surfaceWidth = 0;
 	private int surfaceHeight = 0;
 	private int sidebarWidth = 250;
 
 	private RiseGame game;
+	private GamePlayer computerPlayer;
+	private int engine;
+	private ComputerPlayer computer;
+	private int[] computerClicks = new int[Move.MAX_CLICKS];
 
 	private SpriteManager spriteManager;
 	private HashMap<String, Paint> paints;
 
-	private float offsetX = 0;
-	private float offsetY = 0;
+	private volatile float offsetX = 0;
+	private volatile float offsetY = 0;
+
+	private PieceGrid<Tile> tiles;
+	private PieceGrid<Tower> towers;
+	private PieceGrid<Worker> workers;
 
-	private ArrayList<Tile> tiles;
-	private ArrayList<Tower> towers;
-	private ArrayList<Worker> workers;
-	private boolean listLockout = false;
+	// The cell of every tile in the order they were added, for BoardLayer.
+	private int[] tileCells = new int[64];
+	private int tileCount = 0;
+
+	// Moves left for each player, as shown by the turn indicators.
+	private int redMoves = 1;
+	private int blueMoves = 0;
+
+	// Built by update and drawn by render.
+	private SceneBuffer scenes = new SceneBuffer();
+	private UpdateBatch updateBatch = new UpdateBatch();
+	private BoardLayer boardLayer;
+
+	// Toggled by a long press on the sidebar, in debuggable builds only.
+	// Hiding the overlay writes the stats out.
+	private FrameStats frameStats = new FrameStats();
+	private boolean debuggable;
+	private volatile boolean showFrameStats = false;
+	private volatile boolean dumpFrameStats = false;
+	private int targetSprite;
 
 	private float dragStartX = 0;
 	private float dragStartY = 0;
-	private boolean isDragging = false;
+	private volatile boolean isDragging = false;
 
 	private int sleepCounter = 50;
 
-	private char[][] layout;
+	private Layout layout;
 
 	private ScreenLocation centerLocation;
 
@@ -66,7 +124,63 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 	private TurnIndicator turnIndicatorBlue;
 
 	public GameView(Context context) {
+		this(context, GamePlayer.UNKNOWN, ENGINE_ALPHA_BETA, Layouts.DEFAULT);
+	}
+
+	/**
+	 * Creates a game on the named layout where one side is played by the
+	 * computer with the given engine, or a two player game if computerPlayer
+	 * is UNKNOWN.
+	 */
+	public GameView(Context context, GamePlayer computerPlayer, int engine,
+			String layoutName) {
+		super(context);
+		this.init(computerPlayer, engine, layoutName);
+		this.game.setup(this.layout);
+		this.buildPieces();
+	}
+
+	/**
+	 * Carries on with a game written by saveState. Throws IOException if the
+	 * state cannot be read, such as when it was written by an older version
+	 * of the game, in which case the view should not be used.
+	 */
+	public GameView(Context context, byte[] state) throws IOException {
 		super(context);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				state));
+		int version = in.readUnsignedByte();
+		if (version != STATE_VERSION) {
+			throw new IOException("Unknown game state version " + version);
+		}
+		String layoutName = in.readUTF();
+		int computerPlayer = in.readUnsignedByte();
+		if (computerPlayer >= GamePlayer.values().length) {
+			throw new IOException("Bad computer player " + computerPlayer);
+		}
+		int engine = in.readUnsignedByte();
+		if (engine >= ENGINES) {
+			throw new IOException("Bad engine " + engine);
+		}
+		if (!this.init(GamePlayer.values()[computerPlayer], engine,
+				layoutName)) {
+			throw new IOException("No layout named " + layoutName);
+		}
+		this.game.restore(in);
+		this.buildPieces();
+	}
+
+	/**
+	 * Sets up everything but the pieces, and returns whether the layout could
+	 * be loaded.
+	 */
+	private boolean init(GamePlayer computerPlayer, int engine,
+			String layoutName) {
+		Context context = this.getContext();
+		this.computerPlayer = computerPlayer;
+		this.engine = engine;
+		this.debuggable = (context.getApplicationInfo().flags
+				& ApplicationInfo.FLAG_DEBUGGABLE) != 0;
 		this.getHolder().addCallback(this);
 		this.setFocusable(true);
 
@@ -74,16 +188,24 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 		SoundManager.initSounds(context);
 		SoundManager.loadSounds();
 
-		this.spriteManager = new SpriteManager(context);
+		this.spriteManager = SpriteManager.getInstance(context);
+		this.spriteManager.awaitLoaded();
+		this.boardLayer = new BoardLayer(this.spriteManager);
+		this.targetSprite = this.spriteManager.getSprite("interface/target");
 
-		this.tiles = new ArrayList<Tile>();
-		this.towers = new ArrayList<Tower>();
-		this.workers = new ArrayList<Worker>();
+		this.tiles = new PieceGrid<Tile>();
+		this.towers = new PieceGrid<Tower>();
+		this.workers = new PieceGrid<Worker>();
 
-		this.loadLayout("the_pit");
+		boolean loaded = this.loadLayout(layoutName);
+		if (loaded) {
+			this.centreOnLayout();
+		}
+		this.game = new RiseGame();
 
 		this.paints = new HashMap<String, Paint>();
 		this.makePaints();
+		return loaded;
 	}
 
 	private void makePaints() {
@@ -104,6 +226,12 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 		this.paints.get("text").setColor(Color.WHITE);
 		this.paints.get("text").setTextSize(48);
 
+		this.paints.put("stats", new Paint());
+		this.paints.get("stats").setColor(Color.WHITE);
+		this.paints.get("stats").setTextSize(16);
+		this.paints.get("stats").setTypeface(Typeface.MONOSPACE);
+		this.paints.get("stats").setAntiAlias(true);
+
 		Paint lineMaster = new Paint();
 		lineMaster.setColor(Color.WHITE);
 		lineMaster.setAntiAlias(true);
@@ -120,51 +248,64 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 				Color.parseColor("#222222"));
 	}
 
-	private void buildInitialLayout() {
-
-		int layoutOffsetX = 30 - this.layout.length / 2;
-		int layoutOffsetY = 30 - this.layout[1].length / 2;
-		if (layoutOffsetX % 2 == 1) {
-			layoutOffsetX -= 1;
-		}
-		if (layoutOffsetY % 2 == 1) {
-			layoutOffsetY -= 1;
+	/**
+	 * Makes a piece for everything on the game's board, once the game has
+	 * been set up or restored.
+	 */
+	private void buildPieces() {
+		for (int x = 0; x < RiseBoard.SIZE; x += 1) {
+			for (int y = 0; y < RiseBoard.SIZE; y += 1) {
+				RiseTile tile = this.game.getTile(x, y);
+				if (tile.isBlank()) {
+					continue;
+				}
+				GridLocation loc = new GridLocation(x, y);
+				this.addTile(loc);
+
+				if (tile.isWorker()) {
+					Worker w = new Worker(this.spriteManager,
+							tile.pieceColour());
+					w.setLocation(loc);
+					if (tile.isSelected()) {
+						w.setSelected(true);
+					}
+					this.workers.add(w);
+				} else if (tile.isTower()) {
+					Tower t = new Tower(this.spriteManager, tile.pieceColour());
+					t.setLocation(loc);
+					for (int h = 0; h < tile.towerHeight(); h += 1) {
+						t.addLevel();
+					}
+					this.towers.add(t);
+				}
+			}
 		}
 
-		ScreenLocation redPos = null, bluePos = null;
+		GamePlayer turn = this.game.getCurrentPlayer();
+		this.redMoves = turn == GamePlayer.RED ? this.game.getMovesLeft() : 0;
+		this.blueMoves = turn == GamePlayer.BLUE ? this.game.getMovesLeft()
+				: 0;
+	}
 
-		for (int x = 0; x < this.layout.length; x += 1) {
-			for (int y = 0; y < this.layout[x].length; y += 1) {
-				char c = this.layout[x][y];
-				GridLocation loc = new GridLocation(layoutOffsetX + x,
-						layoutOffsetY + y);
+	/**
+	 * Centres the board between the workers that the layout starts with.
+	 */
+	private void centreOnLayout() {
 
-				if (c == 'R' || c == 'O' || c == 'B') {
-					Tile t = new Tile(this.spriteManager);
-					t.setLocation(loc);
-					this.tiles.add(t);
-
-					if (c == 'R') {
-						Worker w = new Worker(this.spriteManager,
-								GamePlayer.RED);
-						w.setLocation(loc);
-						while (listLockout) {
-						}
-						listLockout = true;
-						this.workers.add(w);
-						listLockout = false;
-						redPos = new ScreenLocation(loc);
-					} else if (c == 'B') {
-						Worker w = new Worker(this.spriteManager,
-								GamePlayer.BLUE);
-						w.setLocation(loc);
-						while (listLockout) {
-						}
-						listLockout = true;
-						this.workers.add(w);
-						listLockout = false;
-						bluePos = new ScreenLocation(loc);
-					}
+		int left = this.layout.getLeft();
+		int top = this.layout.getTop();
+
+		ScreenLocation redPos = null, bluePos = null;
+
+		for (int x = 0; x < this.layout.getWidth(); x += 1) {
+			for (int y = 0; y < this.layout.getHeight(); y += 1) {
+				int c = this.layout.get(x, y);
+				if (c == Layout.RED_WORKER) {
+					redPos = new ScreenLocation(new GridLocation(left + x, top
+							+ y));
+				} else if (c == Layout.BLUE_WORKER) {
+					bluePos = new ScreenLocation(new GridLocation(left + x,
+							top + y));
 				}
 			}
 		}
@@ -181,21 +322,7 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 	private boolean loadLayout(String name) {
 
 		try {
-			String layoutString = Utils.readTextAsset(this.getContext(), name);
-			if (layoutString == "") {
-				return false;
-			}
-			layoutString = layoutString.replace(",", "");
-			layoutString = layoutString.replace(".", "");
-
-			String[] layoutRows = layoutString.split("\n");
-			this.layout = new char[layoutRows[0].length()][layoutRows.length];
-			for (int r = 0; r < layoutRows.length; r += 1) {
-				String row = layoutRows[r].trim();
-				for (int c = 0; c < row.length(); c += 1) {
-					this.layout[c][r] = row.charAt(c);
-				}
-			}
+			this.layout = Layouts.getInstance(this.getContext()).get(name);
 			return true;
 
 		} catch (Exception ex) {
@@ -216,33 +343,46 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 		this.sidebarRectangle = new RectF(0, 0, sidebarWidth, surfaceHeight);
 
 		this.turnIndicatorRed = new TurnIndicator(new Rect(10, 10,
-				sidebarWidth - 10, 50), GamePlayer.RED, 1);
+				sidebarWidth - 10, 50), GamePlayer.RED);
 		this.turnIndicatorBlue = new TurnIndicator(new Rect(10,
 				surfaceHeight - 50, sidebarWidth - 10, surfaceHeight - 10),
-				GamePlayer.BLUE, 0);
+				GamePlayer.BLUE);
 
+		// The surface may have a new format even if its size is the same.
+		this.boardLayer.invalidate();
+		this.requestRender();
 	}
 
 	public void surfaceCreated(SurfaceHolder holder) {
 
-		this.game = new RiseGame();
-		this.game.setup(this.layout);
-
-		this.buildInitialLayout();
-
 		this.thread = new GameThread(this.getHolder(), this);
 		if (this.thread == null || !thread.isRunning()) {
 			thread.setRunning(true);
 			thread.start();
 		}
+
+		if (this.computerPlayer != GamePlayer.UNKNOWN) {
+			this.computer = new ComputerPlayer(this, this.computerPlayer,
+					GameView.createSearch(this.engine));
+			this.computer.setRunning(true);
+			this.computer.start();
+			this.checkComputerTurn();
+		}
 	}
 
 	public void surfaceDestroyed(SurfaceHolder holder) {
+		if (this.computer != null) {
+			this.computer.setRunning(false);
+		}
 		thread.setRunning(false);
 		boolean retry = true;
 		while (retry) {
 			try {
 				this.thread.join();
+				if (this.computer != null) {
+					this.computer.join();
+					this.computer = null;
+				}
 				retry = false;
 			} catch (InterruptedException e) {
 			}
@@ -251,14 +391,23 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 
 	public void render(Canvas canvas) {
 		try {
-			canvas.drawColor(Color.BLACK);
-			this.drawBackground(canvas);
+			if (this.dumpFrameStats) {
+				this.dumpFrameStats = false;
+				this.writeFrameStats(this.frameStats.snapshot());
+			}
+			Scene scene = this.scenes.getFront();
+			this.frameStats.begin(FrameStats.BOARD);
+			this.boardLayer.draw(canvas, scene);
+			this.frameStats.end(FrameStats.BOARD);
+			this.frameStats.begin(FrameStats.PIECES);
 			canvas.save();
-			canvas.translate(this.offsetX, this.offsetY);
-			this.drawTiles(canvas);
-			this.drawPieces(canvas);
+			canvas.translate(scene.offsetX, scene.offsetY);
+			scene.pieces.draw(canvas, this.spriteManager);
 			canvas.restore();
-			this.drawInterface(canvas);
+			this.frameStats.end(FrameStats.PIECES);
+			this.frameStats.begin(FrameStats.INTERFACE);
+			this.drawInterface(canvas, scene);
+			this.frameStats.end(FrameStats.INTERFACE);
 		} catch (Exception ex) {
 			Log.e(TAG,
 					ex.getMessage() == null ? ex.toString() : ex.getMessage());
@@ -266,52 +415,21 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 		}
 	}
 
-	private void drawBackground(Canvas canvas) {
-		for (int x = 0; x < surfaceWidth; x += 256) {
-			for (int y = 0; y < surfaceHeight; y += 256) {
-				canvas.drawBitmap(this.spriteManager.getBitmap("background"),
-						x, y, null);
-			}
-		}
-	}
-
-	private void drawTiles(Canvas canvas) {
-		while (listLockout) {
-		}
-		listLockout = true;
-		for (Tile tile : this.tiles) {
-			tile.draw(canvas);
-		}
-		listLockout = false;
-	}
-
-	private void drawPieces(Canvas canvas) {
-
-		while (listLockout) {
-		}
-		listLockout = true;
-		for (Worker worker : this.workers) {
-			worker.draw(canvas);
-		}
-		for (Tower tower : this.towers) {
-			tower.draw(canvas);
-		}
-		listLockout = false;
-	}
-
-	private void drawInterface(Canvas canvas) {
+	private void drawInterface(Canvas canvas, Scene scene) {
 
 		canvas.drawRect(this.sidebarRectangle,
 				this.paints.get("sidebarBackground"));
 
-		this.turnIndicatorBlue.draw(canvas);
-		this.turnIndicatorRed.draw(canvas);
+		this.turnIndicatorBlue.draw(canvas, scene.blueMoves);
+		this.turnIndicatorRed.draw(canvas, scene.redMoves);
 
-		canvas.drawBitmap(
-				this.spriteManager.getBitmap("interface/target"),
-				this.surfaceWidth
-						- this.spriteManager.getBitmap("interface/target")
-								.getWidth() - 10, 10, null);
+		this.spriteManager.draw(canvas, this.targetSprite, this.surfaceWidth
+				- this.spriteManager.getWidth(this.targetSprite) - 10, 10);
+
+		if (this.showFrameStats) {
+			this.frameStats.draw(canvas, this.paints.get("stats"),
+					this.sidebarWidth + 10, 30, 20);
+		}
 
 	}
 
@@ -319,23 +437,185 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 
 		if (this.sleepCounter > 0) {
 			this.sleepCounter -= 1;
-			return;
+		} else {
+			this.frameStats.begin(FrameStats.DRAIN);
+			if (this.updateBatch.drain(this.game) > 0) {
+				for (int i = 0; i < this.updateBatch.size(); i += 1) {
+					GameUpdate update = this.updateBatch.get(i);
+					if (update != null) {
+						handleGameUpdate(update);
+					}
+				}
+				this.updateBatch.clear();
+			}
+			this.frameStats.end(FrameStats.DRAIN);
+
+			for (int i = 0; i < this.workers.size(); i += 1) {
+				this.workers.get(i).update();
+			}
+			for (int i = 0; i < this.towers.size(); i += 1) {
+				this.towers.get(i).update();
+			}
 		}
+	}
 
-		if (game.hasUpdate()) {
-			handleGameUpdate(game.getUpdate());
+	/**
+	 * Records where every piece on screen is now into a scene for render to
+	 * draw, so that drawing never looks at the pieces while they are being
+	 * changed. Only the cells under the visible part of the board are walked,
+	 * row by row so that lower pieces are drawn over the ones behind them.
+	 * Called by the game thread before each frame it draws.
+	 */
+	void publishScene() {
+		Scene scene = this.scenes.getBack();
+		scene.clear();
+
+		float offsetX = this.offsetX;
+		float offsetY = this.offsetY;
+		int minX = Math.max(0, (int) Math.floor((this.sidebarWidth - offsetX)
+				/ Common.TILE_WIDTH) - CULL_MARGIN);
+		int maxX = Math.min(RiseBoard.SIZE - 1, (int) Math.ceil((this.sidebarWidth
+				+ this.surfaceWidth - offsetX) / Common.TILE_WIDTH) + CULL_MARGIN);
+		int minY = Math.max(0, (int) Math.floor(-offsetY
+				/ Common.TILE_HEIGHT_THREEQUARTERS) - CULL_MARGIN);
+		int maxY = Math.min(RiseBoard.SIZE - 1, (int) Math.ceil((this.surfaceHeight
+				- offsetY) / Common.TILE_HEIGHT_THREEQUARTERS) + CULL_MARGIN);
+
+		for (int y = minY; y <= maxY; y += 1) {
+			for (int x = minX; x <= maxX; x += 1) {
+				Tile tile = this.tiles.get(x, y);
+				if (tile != null) {
+					tile.draw(scene.tiles);
+				}
+				Worker worker = this.workers.get(x, y);
+				if (worker != null) {
+					worker.draw(scene.pieces);
+				}
+				Tower tower = this.towers.get(x, y);
+				if (tower != null) {
+					tower.draw(scene.pieces);
+				}
+			}
 		}
 
-		while (listLockout) {
+		scene.offsetX = offsetX;
+		scene.offsetY = offsetY;
+		scene.tileCells = this.tileCells;
+		scene.tileCount = this.tileCount;
+		scene.redMoves = this.redMoves;
+		scene.blueMoves = this.blueMoves;
+		this.scenes.publish();
+	}
+
+	private void addTile(GridLocation location) {
+		Tile tile = new Tile(this.spriteManager);
+		tile.setLocation(location);
+		this.tiles.add(tile);
+
+		// Copied rather than grown in place so that scenes already published
+		// keep seeing the cells they were given.
+		if (this.tileCount == this.tileCells.length) {
+			int[] cells = new int[this.tileCells.length * 2];
+			System.arraycopy(this.tileCells, 0, cells, 0, this.tileCount);
+			this.tileCells = cells;
+		}
+		this.tileCells[this.tileCount] = RiseBoard.cell(location.getGridX(),
+				location.getGridY());
+		this.tileCount += 1;
+	}
+
+	FrameStats getFrameStats() {
+		return this.frameStats;
+	}
+
+	/**
+	 * Appends the stats to frame_stats.txt in the app's internal files folder
+	 * on a thread of its own, so the game thread never waits on the file.
+	 * Debuggable builds can pull it off the device with
+	 * "adb shell run-as com.matthewtole.androidrise cat files/frame_stats.txt".
+	 */
+	private void writeFrameStats(final FrameStats stats) {
+		final Context context = this.getContext().getApplicationContext();
+		new Thread(new Runnable() {
+			public void run() {
+				File file = new File(context.getFilesDir(), "frame_stats.txt");
+				PrintWriter out = null;
+				try {
+					out = new PrintWriter(new FileWriter(file, true));
+					out.println(new Date() + " " + Build.MODEL + " API "
+							+ Build.VERSION.SDK_INT);
+					stats.dump(out);
+					out.println();
+					Log.d(TAG, "Wrote frame stats to " + file);
+				} catch (IOException e) {
+					Log.e(TAG,
+							"Could not write frame stats: " + e.getMessage());
+				} finally {
+					if (out != null) {
+						out.close();
+					}
+				}
+			}
+		}, "FrameStatsWriter").start();
+	}
+
+	/**
+	 * Writes the game so that it can be carried on later by
+	 * GameView(Context, byte[]). Called on the UI thread, which is the only
+	 * one that changes the game.
+	 */
+	public byte[] saveState() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(STATE_VERSION);
+			out.writeUTF(this.layout.getName());
+			out.writeByte(this.computerPlayer.ordinal());
+			out.writeByte(this.engine);
+			this.game.save(out);
+		} catch (IOException e) {
+			// Writing to memory cannot fail.
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	public boolean isGameOver() {
+		return this.game.getWinner() != GamePlayer.UNKNOWN;
+	}
+
+	/**
+	 * Whether the game thread can stop drawing: there are no game updates
+	 * waiting, no pieces moving or animating, and the board is not being
+	 * dragged. Called from the game thread.
+	 */
+	boolean isIdle() {
+		if (this.sleepCounter > 0 || this.isDragging || this.game == null
+				|| this.game.hasUpdate()) {
+			return false;
+		}
+		for (int i = 0; i < this.workers.size(); i += 1) {
+			if (this.workers.get(i).isAnimating()) {
+				return false;
+			}
 		}
-		listLockout = true;
-		for (Worker worker : this.workers) {
-			worker.update();
+		for (int i = 0; i < this.towers.size(); i += 1) {
+			if (this.towers.get(i).isAnimating()) {
+				return false;
+			}
 		}
-		for (Tower tower : this.towers) {
-			tower.update();
+		return true;
+	}
+
+	/**
+	 * Wakes the game thread if it is idle. Call after anything that changes
+	 * what is on screen.
+	 */
+	private void requestRender() {
+		GameThread thread = this.thread;
+		if (thread != null) {
+			thread.wake();
 		}
-		listLockout = false;
 	}
 
 	private void updateDrawOffset(float x, float y) {
@@ -348,8 +628,19 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 	@Override
 	public boolean onTouchEvent(MotionEvent event) {
 
+		this.requestRender();
+
 		if (this.sidebarRectangle.contains(event.getX(), event.getY())) {
 			this.isDragging = false;
+			if (this.debuggable
+					&& event.getAction() == MotionEvent.ACTION_UP
+					&& event.getEventTime() - event.getDownTime() >= ViewConfiguration
+							.getLongPressTimeout()) {
+				this.showFrameStats = !this.showFrameStats;
+				if (!this.showFrameStats) {
+					this.dumpFrameStats = true;
+				}
+			}
 			return true;
 		}
 
@@ -388,9 +679,9 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 
 	private void handleGameUpdate(GameUpdate update) {
 
-		Worker w = findWorkerByLocation(update.location);
-		Worker w2 = findWorkerByLocation(update.locationSecondary);
-		Worker w3 = findWorkerByLocation(update.locationTertiary);
+		Worker w = this.workers.get(update.location);
+		Worker w2 = this.workers.get(update.locationSecondary);
+		Worker w3 = this.workers.get(update.locationTertiary);
 
 		switch (update.type) {
 		case WORKER_SELECTED:
@@ -405,6 +696,7 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 			break;
 		case WORKER_MOVED:
 			if (w != null) {
+				this.workers.move(update.location, update.locationSecondary);
 				w.setLocation(update.locationSecondary, false);
 				w.setSelected(false);
 			}
@@ -412,55 +704,37 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 		case WORKER_ADDED: {
 			Worker newWorker = new Worker(spriteManager, update.player);
 			newWorker.setLocation(update.location);
-			while (listLockout) {
-			}
-			listLockout = true;
 			this.workers.add(newWorker);
-			listLockout = false;
 		}
 			break;
 		case WORKER_JUMP:
+			this.workers.remove(w3);
+			this.workers.move(update.location, update.locationSecondary);
 			w.setLocation(update.locationSecondary, false);
 			w.setSelected(false);
-			while (listLockout) {
-			}
-			listLockout = true;
-			this.workers.remove(w3);
-			listLockout = false;
 			break;
-		case TILE_ADDED: {
-			Tile t = new Tile(spriteManager);
-			t.setLocation(update.location);
-			this.tiles.add(t);
-		}
+		case TILE_ADDED:
+			this.addTile(update.location);
 			break;
 		case TOWER_REDUCED: {
-			Tower t = findTowerByLocation(update.location);
+			Tower t = this.towers.get(update.location);
 			t.removeLevel();
 		}
 			break;
 		case TOWER_DEMOLISHED: {
-			Tower t = findTowerByLocation(update.location);
-			while (listLockout) {
-			}
-			listLockout = true;
+			Tower t = this.towers.get(update.location);
 			this.towers.remove(t);
-			listLockout = false;
 		}
 			break;
 		case TOWER_BUILT: {
-			Tower t = findTowerByLocation(update.location);
+			Tower t = this.towers.get(update.location);
 			t.addLevel();
 		}
 			break;
 		case TOWER_CREATED: {
 			Tower newTower = new Tower(spriteManager, update.player);
 			newTower.setLocation(update.location);
-			while (listLockout) {
-			}
-			listLockout = true;
 			this.towers.add(newTower);
-			listLockout = false;
 		}
 			break;
 		case SACRIFICE_ADD: {
@@ -470,39 +744,34 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 						(w2.getPlayer() == GamePlayer.BLUE) ? GamePlayer.BLUE
 								: GamePlayer.RED);
 				newWorker.setLocation(update.location);
-				while (listLockout) {
-				}
-				listLockout = true;
-				this.workers.add(newWorker);
 				this.workers.remove(w2);
 				this.workers.remove(w3);
-				listLockout = false;
+				this.workers.add(newWorker);
 			}
 		}
 			break;
 		case SACRIFICE_REMOVE: {
-			while (listLockout) {
-			}
-			listLockout = true;
 			this.workers.remove(w);
 			this.workers.remove(w2);
 			this.workers.remove(w3);
-			listLockout = false;
 		}
 			break;
 		case MOVE_MADE: {
 			if (update.player == GamePlayer.BLUE) {
-				this.turnIndicatorBlue.moveMade();
+				this.blueMoves -= 1;
 			} else {
-				this.turnIndicatorRed.moveMade();
+				this.redMoves -= 1;
 			}
 		}
 			break;
 		case TURN_FINISHED: {
+			// The other player has none left, even if they passed.
 			if (update.player == GamePlayer.BLUE) {
-				this.turnIndicatorBlue.myTurn();
+				this.blueMoves = 2;
+				this.redMoves = 0;
 			} else {
-				this.turnIndicatorRed.myTurn();
+				this.redMoves = 2;
+				this.blueMoves = 0;
 			}
 		}
 			break;
@@ -514,13 +783,22 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 		if (this.sleepCounter > 0) {
 			return;
 		}
+		if (this.isComputerTurn()) {
+			return;
+		}
 
 		int touchX = (int) (x - this.offsetX);
 		int touchY = (int) (y - this.offsetY);
 
 		GridLocation loc = new ScreenLocation(touchX, touchY).toGridLocation();
-		Boolean validMove = this.game.doAction(loc.getGridX(), loc.getGridY(),
+		this.onGridClick(loc.getGridX(), loc.getGridY());
+		this.checkComputerTurn();
+	}
+
+	private void onGridClick(int x, int y) {
+		Boolean validMove = this.game.doAction(x, y,
 				this.game.getCurrentPlayer());
+		this.requestRender();
 		if (validMove) {
 
 		} else {
@@ -532,40 +810,62 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
 		}
 	}
 
-	private Tower findTowerByLocation(GridLocation location) {
-		if (location == null) {
-			return null;
+	/**
+	 * The search for an engine. Monte Carlo tree search runs a thread on
+	 * every core.
+	 */
+	private static MoveSearch createSearch(int engine) {
+		if (engine == ENGINE_MONTE_CARLO) {
+			return new MonteCarloSearch(Runtime.getRuntime()
+					.availableProcessors());
 		}
+		return new AlphaBetaSearch(18);
+	}
 
-		while (listLockout) {
-		}
-		listLockout = true;
-		for (Tower t : this.towers) {
-			if (t.getLocation().equals(location)) {
-				listLockout = false;
-				return t;
-			}
-		}
-		listLockout = true;
-		return null;
+	private boolean isComputerTurn() {
+		return this.computer != null
+				&& this.game.getCurrentPlayer() == this.computerPlayer;
 	}
 
-	private Worker findWorkerByLocation(GridLocation location) {
-		if (location == null) {
-			return null;
+	private void checkComputerTurn() {
+		if (this.isComputerTurn() && !this.computer.isThinking()
+				&& this.game.getTurnState() == TurnState.NOTHING) {
+			this.computer.think(this.game);
 		}
+	}
 
-		while (listLockout) {
+	/**
+	 * Plays a move chosen by the computer as the same touches a player would
+	 * make. Must be called on the UI thread.
+	 */
+	void playComputerMove(long move) {
+		if (!this.isComputerTurn()) {
+			return;
 		}
-		listLockout = true;
-		for (Worker w : this.workers) {
-			if (w.getLocation().equals(location)) {
-				listLockout = false;
-				return w;
+
+		if (move == Move.NONE) {
+			// The search only finds nothing when there is no legal move.
+			if (this.game.pass(this.computerPlayer)) {
+				Log.d(TAG, this.computerPlayer + " has no moves and passes");
+				Toast.makeText(this.getContext(),
+						"The computer cannot move and passes.",
+						Toast.LENGTH_SHORT).show();
+			} else {
+				Log.e(TAG, "No move found for " + this.computerPlayer
+						+ " though it has one, searching again");
 			}
+			this.requestRender();
+			this.checkComputerTurn();
+			return;
+		}
+
+		int count = Move.clicks(move, this.computerClicks);
+		for (int i = 0; i < count; i += 1) {
+			this.onGridClick(RiseBoard.cellX(this.computerClicks[i]),
+					RiseBoard.cellY(this.computerClicks[i]));
 		}
-		listLockout = false;
-		return null;
+
+		this.checkComputerTurn();
 	}
 
 }
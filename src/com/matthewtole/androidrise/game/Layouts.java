@@ -0,0 +1,24 @@
+package com.matthewtole.androidrise.game;
+
+import android.content.Context;
+
+import com.matthewtole.androidrise.lib.LayoutStore;
+
+/**
+ * The layouts packaged with the app, shared by the menu and every game so
+ * that each one is only read once.
+ */
+public class Layouts {
+
+	public static final String DEFAULT = "the_pit";
+
+	private static LayoutStore instance;
+
+	static synchronized public LayoutStore getInstance(Context context) {
+		if (instance == null) {
+			instance = new LayoutStore(new AndroidAssetSource(context
+					.getApplicationContext().getAssets()));
+		}
+		return instance;
+	}
+}
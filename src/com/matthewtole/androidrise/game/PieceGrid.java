@@ -0,0 +1,136 @@
+package com.matthewtole.androidrise.game;
+
+import com.matthewtole.androidrise.game.pieces.Piece;
+import com.matthewtole.androidrise.lib.GridLocation;
+import com.matthewtole.androidrise.lib.RiseBoard;
+
+/**
+ * Pieces kept both by board cell, for constant time lookups, and in a packed
+ * array, so they can be walked without looking at every empty cell. Removing
+ * a piece moves the last piece into its slot, so the order is not kept.
+ */
+public class PieceGrid<T extends Piece> {
+
+	private final Object[] cells = new Object[RiseBoard.CELLS];
+	private final int[] slotOfCell = new int[RiseBoard.CELLS];
+
+	private Object[] pieces = new Object[32];
+	private int[] cellOfSlot = new int[32];
+	private int size = 0;
+
+	public int size() {
+		return this.size;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		return (T) this.pieces[index];
+	}
+
+	/**
+	 * The piece in the cell at x, y, which must be on the board.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int x, int y) {
+		return (T) this.cells[RiseBoard.cell(x, y)];
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(GridLocation location) {
+		int cell = cellOf(location);
+		if (cell < 0) {
+			return null;
+		}
+		return (T) this.cells[cell];
+	}
+
+	/**
+	 * Adds a piece at its current location, replacing any piece already
+	 * there.
+	 */
+	public void add(T piece) {
+		int cell = cellOf(piece.getLocation());
+		if (cell < 0) {
+			return;
+		}
+		if (this.cells[cell] != null) {
+			this.removeCell(cell);
+		}
+		if (this.size == this.pieces.length) {
+			this.grow();
+		}
+		this.pieces[this.size] = piece;
+		this.cellOfSlot[this.size] = cell;
+		this.cells[cell] = piece;
+		this.slotOfCell[cell] = this.size;
+		this.size += 1;
+	}
+
+	public void remove(T piece) {
+		if (piece == null) {
+			return;
+		}
+		int cell = cellOf(piece.getLocation());
+		if (cell >= 0 && this.cells[cell] == piece) {
+			this.removeCell(cell);
+		}
+	}
+
+	/**
+	 * Moves the piece at from to the cell at to. Call this before giving the
+	 * piece its new location.
+	 */
+	public void move(GridLocation from, GridLocation to) {
+		int fromCell = cellOf(from);
+		int toCell = cellOf(to);
+		if (fromCell < 0 || toCell < 0 || fromCell == toCell
+				|| this.cells[fromCell] == null) {
+			return;
+		}
+		if (this.cells[toCell] != null) {
+			this.removeCell(toCell);
+		}
+		int slot = this.slotOfCell[fromCell];
+		this.cells[toCell] = this.cells[fromCell];
+		this.slotOfCell[toCell] = slot;
+		this.cellOfSlot[slot] = toCell;
+		this.cells[fromCell] = null;
+	}
+
+	public void clear() {
+		for (int i = 0; i < this.size; i += 1) {
+			this.cells[this.cellOfSlot[i]] = null;
+			this.pieces[i] = null;
+		}
+		this.size = 0;
+	}
+
+	private void removeCell(int cell) {
+		int slot = this.slotOfCell[cell];
+		int last = this.size - 1;
+		this.pieces[slot] = this.pieces[last];
+		this.cellOfSlot[slot] = this.cellOfSlot[last];
+		this.slotOfCell[this.cellOfSlot[slot]] = slot;
+		this.pieces[last] = null;
+		this.cells[cell] = null;
+		this.size = last;
+	}
+
+	private void grow() {
+		int length = this.pieces.length * 2;
+		Object[] pieces = new Object[length];
+		int[] cellOfSlot = new int[length];
+		System.arraycopy(this.pieces, 0, pieces, 0, this.size);
+		System.arraycopy(this.cellOfSlot, 0, cellOfSlot, 0, this.size);
+		this.pieces = pieces;
+		this.cellOfSlot = cellOfSlot;
+	}
+
+	private static int cellOf(GridLocation location) {
+		if (location == null
+				|| !RiseBoard.isValid(location.getGridX(), location.getGridY())) {
+			return -1;
+		}
+		return RiseBoard.cell(location.getGridX(), location.getGridY());
+	}
+}
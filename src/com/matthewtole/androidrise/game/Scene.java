@@ -0,0 +1,27 @@
+package com.matthewtole.androidrise.game;
+
+/**
+ * Everything the render loop needs to draw one frame of the board. Scenes
+ * are built by GameView.update and handed to render through a SceneBuffer.
+ */
+public class Scene {
+
+	public final DrawList tiles = new DrawList();
+	public final DrawList pieces = new DrawList();
+
+	public float offsetX = 0;
+	public float offsetY = 0;
+
+	// Every tile cell added so far, in order. Entries before tileCount never
+	// change, so the array can be shared between scenes.
+	public int[] tileCells;
+	public int tileCount = 0;
+
+	public int redMoves = 0;
+	public int blueMoves = 0;
+
+	public void clear() {
+		this.tiles.clear();
+		this.pieces.clear();
+	}
+}
@@ -0,0 +1,49 @@
+package com.matthewtole.androidrise.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passes scenes from the thread that builds them to the thread that draws
+ * them without locking, using three scenes: one being built, one being
+ * drawn, and the most recently finished one waiting in between.
+ * 
+ * The waiting scene's index and whether it is newer than the one being drawn
+ * share one atomic int, so the two sides swap scenes with a single getAndSet.
+ */
+public class SceneBuffer {
+
+	private static final int FRESH = 4;
+	private static final int INDEX = 3;
+
+	private final Scene[] scenes = { new Scene(), new Scene(), new Scene() };
+	private final AtomicInteger waiting = new AtomicInteger(1);
+
+	// Only touched by the building thread.
+	private int back = 0;
+	// Only touched by the drawing thread.
+	private int front = 2;
+
+	/**
+	 * The scene to build the next frame in. Building thread only.
+	 */
+	public Scene getBack() {
+		return this.scenes[this.back];
+	}
+
+	/**
+	 * Hands over the scene returned by getBack. Building thread only.
+	 */
+	public void publish() {
+		this.back = this.waiting.getAndSet(this.back | FRESH) & INDEX;
+	}
+
+	/**
+	 * The most recently published scene. Drawing thread only.
+	 */
+	public Scene getFront() {
+		if ((this.waiting.get() & FRESH) != 0) {
+			this.front = this.waiting.getAndSet(this.front) & INDEX;
+		}
+		return this.scenes[this.front];
+	}
+}
@@ -2,49 +2,412 @@ package com.matthewtole.androidrise.game;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import android.app.ActivityManager;
 import android.content.Context;
-import android.content.res.AssetManager;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
+import android.util.Log;
 
+/**
+ * Loads the images in assets/gfx. Sprites small enough are packed into atlas
+ * pages and are drawn by an int handle, so drawing a piece never has to look
+ * up a name. Larger images, like the background, are kept by name as
+ * separate bitmaps in a BitmapCache, and are decoded again if they have
+ * been dropped from it.
+ *
+ * Everything is decoded up front on a pool of threads by preload, which the
+ * menu starts so that the game never decodes an image mid-frame. Only the
+ * loading methods may be called until awaitLoaded has returned.
+ */
 public class SpriteManager {
-	
+
+	private static final String TAG = SpriteManager.class.getSimpleName();
+
+	public static final int NONE = -1;
+
+	private static final String ROOT = "gfx";
+	private static final int PAGE_SIZE = 1024;
+	private static final int MAX_SPRITE_SIZE = 256;
+	private static final int PADDING = 1;
+	private static final int MAX_THREADS = 4;
+
+	/**
+	 * Told how many images have been decoded so far, from a loading thread.
+	 */
+	public interface LoadListener {
+		void onProgress(int loaded, int total);
+	}
+
+	private static SpriteManager instance;
+
 	private Context context;
-	private HashMap<String, Bitmap> bitmaps;
-	
-	public SpriteManager(Context context) {
+	private BitmapCache bitmaps;
+	// The asset and config each image outside the atlas was decoded from.
+	private HashMap<String, String> assetsByName;
+	private HashMap<String, Bitmap.Config> configs;
+
+	private HashMap<String, Integer> handles;
+	private ArrayList<Bitmap> pages;
+	private Bitmap[] spritePages;
+	private Rect[] spriteRects;
+	private final RectF target = new RectF();
+
+	// Where the next sprite goes in the page being filled.
+	private Canvas pageCanvas;
+	private int shelfX = 0;
+	private int shelfY = 0;
+	private int shelfHeight = 0;
+
+	private Thread loader;
+	private volatile LoadListener listener;
+	private final CountDownLatch loaded = new CountDownLatch(1);
+
+	private SpriteManager(Context context) {
 		this.context = context;
-		this.bitmaps = new HashMap<String, Bitmap>();
+		ActivityManager activityManager = (ActivityManager) context
+				.getSystemService(Context.ACTIVITY_SERVICE);
+		this.bitmaps = new BitmapCache(activityManager.getMemoryClass() * 1024
+				* 1024 / 8);
+		this.assetsByName = new HashMap<String, String>();
+		this.configs = new HashMap<String, Bitmap.Config>();
+		this.handles = new HashMap<String, Integer>();
+		this.pages = new ArrayList<Bitmap>();
+		this.spritePages = new Bitmap[64];
+		this.spriteRects = new Rect[64];
 	}
-	
-	public Bitmap getBitmap(String name) {
-		if (this.bitmaps.containsKey(name)) {
-			return this.bitmaps.get(name);
+
+	static synchronized public SpriteManager getInstance(Context context) {
+		if (instance == null) {
+			instance = new SpriteManager(context.getApplicationContext());
+		}
+		return instance;
+	}
+
+	public void setLoadListener(LoadListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Starts loading every image in the background if that has not already
+	 * started.
+	 */
+	public synchronized void preload() {
+		if (this.loader != null) {
+			return;
+		}
+		this.loader = new Thread(new Runnable() {
+			public void run() {
+				SpriteManager.this.load();
+			}
+		}, TAG);
+		this.loader.start();
+	}
+
+	public boolean isLoaded() {
+		return this.loaded.getCount() == 0;
+	}
+
+	/**
+	 * Blocks until every image has been loaded, starting the load if no one
+	 * has yet.
+	 */
+	public void awaitLoaded() {
+		this.preload();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				this.loaded.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
 		}
-		
-		Bitmap tmp = this.getBitmapFromAsset("gfx/" + name + ".png");
-		if (tmp == null) {
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * The handle of the named sprite, or NONE if it is not in an atlas.
+	 */
+	public int getSprite(String name) {
+		Integer handle = this.handles.get(name);
+		return handle == null ? NONE : handle.intValue();
+	}
+
+	public int getWidth(int sprite) {
+		return this.spriteRects[sprite].width();
+	}
+
+	public int getHeight(int sprite) {
+		return this.spriteRects[sprite].height();
+	}
+
+	/**
+	 * Draws a sprite with its top left corner at x, y. Only call this from
+	 * the thread that renders.
+	 */
+	public void draw(Canvas canvas, int sprite, float x, float y) {
+		Rect source = this.spriteRects[sprite];
+		this.target.set(x, y, x + source.width(), y + source.height());
+		canvas.drawBitmap(this.spritePages[sprite], source, this.target, null);
+	}
+
+	/**
+	 * An image that is not in the atlas. Do not keep the bitmap, as it may be
+	 * reused for another image once it has been dropped from the cache.
+	 */
+	public synchronized Bitmap getBitmap(String name) {
+		Bitmap bitmap = this.bitmaps.get(name);
+		if (bitmap != null) {
+			return bitmap;
+		}
+
+		String asset = this.assetsByName.get(name);
+		if (asset == null) {
+			asset = ROOT + "/" + name + ".png";
+		}
+		bitmap = decode(this.context, asset, this.configs.get(name),
+				this.bitmaps);
+		if (bitmap == null) {
 			return null;
 		}
-		this.bitmaps.put(name, tmp);
-		return tmp;
+		this.keep(name, asset, bitmap);
+		return bitmap;
+	}
+
+	public void onTrimMemory(int level) {
+		this.bitmaps.onTrimMemory(level);
+	}
+
+	private synchronized void keep(String name, String asset, Bitmap bitmap) {
+		this.assetsByName.put(name, asset);
+		this.configs.put(name, bitmap.getConfig());
+		this.bitmaps.put(name, bitmap);
 	}
-	
-	private Bitmap getBitmapFromAsset(String name)
-    {
-        AssetManager assetManager = this.context.getAssets();
 
-        InputStream istr;
+	private void load() {
+		long start = System.currentTimeMillis();
+		ArrayList<String> assets = new ArrayList<String>();
+		this.listAssets(ROOT, assets);
+
+		final int total = assets.size();
+		final AtomicInteger done = new AtomicInteger(0);
+		int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime()
+				.availableProcessors()));
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<Bitmap>> decoded = new ArrayList<Future<Bitmap>>();
+		for (final String asset : assets) {
+			decoded.add(pool.submit(new Callable<Bitmap>() {
+				public Bitmap call() {
+					Bitmap bitmap = decode(SpriteManager.this.context, asset,
+							null, null);
+					LoadListener listener = SpriteManager.this.listener;
+					int count = done.incrementAndGet();
+					if (listener != null) {
+						listener.onProgress(count, total);
+					}
+					return bitmap;
+				}
+			}));
+		}
+
+		// Packed in listing order, on this thread alone, so that the atlas
+		// comes out the same every time.
+		for (int i = 0; i < total; i += 1) {
+			Bitmap bitmap = null;
+			try {
+				bitmap = decoded.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				Log.e(TAG, "Could not load " + assets.get(i));
+			}
+			if (bitmap != null) {
+				this.addImage(nameOf(assets.get(i)), assets.get(i), bitmap);
+			}
+		}
+		pool.shutdown();
+		this.trimLastPage();
+		this.pageCanvas = null;
+
+		Log.d(TAG, "Loaded " + total + " images into " + this.pages.size()
+				+ " atlas pages in " + (System.currentTimeMillis() - start)
+				+ "ms");
+		this.loaded.countDown();
+	}
+
+	private void listAssets(String path, ArrayList<String> assets) {
+		String[] names;
 		try {
-			istr = assetManager.open(name);
-			Bitmap bitmap = BitmapFactory.decodeStream(istr);
-			return bitmap;
+			names = this.context.getAssets().list(path);
+		} catch (IOException e) {
+			Log.e(TAG, "Could not list " + path);
+			return;
+		}
+		for (String name : names) {
+			if (name.lastIndexOf('.') < 0) {
+				this.listAssets(path + "/" + name, assets);
+			} else {
+				assets.add(path + "/" + name);
+			}
+		}
+	}
+
+	private static String nameOf(String asset) {
+		return asset.substring(ROOT.length() + 1, asset.lastIndexOf('.'));
+	}
+
+	private void addImage(String name, String asset, Bitmap bitmap) {
+		int width = bitmap.getWidth();
+		int height = bitmap.getHeight();
+		if (width > MAX_SPRITE_SIZE || height > MAX_SPRITE_SIZE) {
+			this.keep(name, asset, bitmap);
+			return;
+		}
+
+		if (this.pageCanvas != null && this.shelfX + width > PAGE_SIZE) {
+			this.shelfX = 0;
+			this.shelfY += this.shelfHeight + PADDING;
+			this.shelfHeight = 0;
+		}
+		if (this.pageCanvas == null || this.shelfY + height > PAGE_SIZE) {
+			Bitmap page = Bitmap.createBitmap(PAGE_SIZE, PAGE_SIZE,
+					Bitmap.Config.ARGB_8888);
+			this.pages.add(page);
+			this.pageCanvas = new Canvas(page);
+			this.shelfX = 0;
+			this.shelfY = 0;
+			this.shelfHeight = 0;
+		}
+
+		int handle = this.handles.size();
+		if (handle == this.spriteRects.length) {
+			this.grow();
+		}
+		this.pageCanvas.drawBitmap(bitmap, this.shelfX, this.shelfY, null);
+		bitmap.recycle();
+		this.spritePages[handle] = this.pages.get(this.pages.size() - 1);
+		this.spriteRects[handle] = new Rect(this.shelfX, this.shelfY,
+				this.shelfX + width, this.shelfY + height);
+		this.handles.put(name, Integer.valueOf(handle));
+
+		this.shelfX += width + PADDING;
+		this.shelfHeight = Math.max(this.shelfHeight, height);
+	}
+
+	/**
+	 * Cuts the unused rows off the bottom of the last page.
+	 */
+	private void trimLastPage() {
+		if (this.pages.isEmpty()) {
+			return;
+		}
+		int height = this.shelfY + this.shelfHeight;
+		Bitmap page = this.pages.get(this.pages.size() - 1);
+		if (height <= 0 || height >= page.getHeight()) {
+			return;
+		}
+		Bitmap trimmed = Bitmap.createBitmap(page, 0, 0, page.getWidth(),
+				height);
+		for (int i = 0; i < this.handles.size(); i += 1) {
+			if (this.spritePages[i] == page) {
+				this.spritePages[i] = trimmed;
+			}
+		}
+		this.pages.set(this.pages.size() - 1, trimmed);
+		page.recycle();
+	}
+
+	private void grow() {
+		int length = this.spriteRects.length * 2;
+		Bitmap[] spritePages = new Bitmap[length];
+		Rect[] spriteRects = new Rect[length];
+		System.arraycopy(this.spritePages, 0, spritePages, 0,
+				this.spritePages.length);
+		System.arraycopy(this.spriteRects, 0, spriteRects, 0,
+				this.spriteRects.length);
+		this.spritePages = spritePages;
+		this.spriteRects = spriteRects;
+	}
+
+	/**
+	 * Decodes an image at the size it was drawn. The game's tile geometry is
+	 * in fixed pixels, so images are never scaled for the screen's density.
+	 * JPEGs, and PNGs that turn out to have no alpha, are kept as RGB_565 at
+	 * half the memory. If a cache is given, the decode writes into one of
+	 * the bitmaps it has dropped where it can.
+	 */
+	private static Bitmap decode(Context context, String asset,
+			Bitmap.Config config, BitmapCache cache) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inScaled = false;
+		if (config == null) {
+			config = asset.endsWith(".jpg") ? Bitmap.Config.RGB_565
+					: Bitmap.Config.ARGB_8888;
+		}
+		options.inPreferredConfig = config;
+
+		if (cache != null
+				&& Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			options.inMutable = true;
+			options.inJustDecodeBounds = true;
+			decodeStream(context, asset, options);
+			options.inJustDecodeBounds = false;
+			options.inBitmap = cache.takeReusable(options.outWidth,
+					options.outHeight, config);
+		}
+
+		Bitmap bitmap;
+		try {
+			bitmap = decodeStream(context, asset, options);
+		} catch (IllegalArgumentException e) {
+			// The reused bitmap did not fit after all.
+			options.inBitmap = null;
+			bitmap = decodeStream(context, asset, options);
+		}
+
+		if (bitmap != null && !bitmap.hasAlpha()
+				&& bitmap.getConfig() == Bitmap.Config.ARGB_8888) {
+			Bitmap opaque = bitmap.copy(Bitmap.Config.RGB_565, true);
+			if (opaque != null) {
+				bitmap.recycle();
+				bitmap = opaque;
+			}
+		}
+		return bitmap;
+	}
+
+	private static Bitmap decodeStream(Context context, String asset,
+			BitmapFactory.Options options) {
+		InputStream istr = null;
+		try {
+			istr = context.getAssets().open(asset);
+			return BitmapFactory.decodeStream(istr, null, options);
 		} catch (IOException e) {
-			e.printStackTrace();
+			Log.e(TAG, "Could not load " + asset);
+			return null;
+		} finally {
+			if (istr != null) {
+				try {
+					istr.close();
+				} catch (IOException e) {
+				}
+			}
 		}
-        
-        return null;
-    }
+	}
 }
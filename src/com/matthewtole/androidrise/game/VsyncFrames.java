@@ -0,0 +1,34 @@
+package com.matthewtole.androidrise.game;
+
+import android.view.Choreographer;
+
+/**
+ * Asks Choreographer for a callback on the next display vsync. Kept out of
+ * GameThread so that the class is never loaded on versions before Jelly
+ * Bean, which do not have Choreographer.
+ */
+class VsyncFrames implements Choreographer.FrameCallback {
+
+	private final GameThread thread;
+	private final Choreographer choreographer;
+
+	/**
+	 * Must be created on the thread whose Looper the callbacks should run on.
+	 */
+	VsyncFrames(GameThread thread) {
+		this.thread = thread;
+		this.choreographer = Choreographer.getInstance();
+	}
+
+	void post() {
+		this.choreographer.postFrameCallback(this);
+	}
+
+	void cancel() {
+		this.choreographer.removeFrameCallback(this);
+	}
+
+	public void doFrame(long frameTimeNanos) {
+		this.thread.doFrame(frameTimeNanos);
+	}
+}
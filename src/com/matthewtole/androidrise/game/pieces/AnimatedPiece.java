@@ -7,6 +7,7 @@ public class AnimatedPiece extends BitmapPiece {
 	@SuppressWarnings("unused")
 	private static final String TAG = AnimatedPiece.class.getSimpleName();
 	private String folder;
+	private int[] frames;
 	private int count;
 	private int frame;
 	private PieceCallback callback;
@@ -23,17 +24,17 @@ public class AnimatedPiece extends BitmapPiece {
 		this.speedCounter = this.speed;
 		this.callback = null;
 		this.paused = false;
-		this.setBitmap(this.makeBitmap());
+		this.frames = new int[count];
+		for (int i = 0; i < count; i += 1) {
+			this.frames[i] = sprites.getSprite(folder + "/" + String.valueOf(i));
+		}
+		this.setSprite(this.frames[0]);
 	}
 	
 	public void setCallback(PieceCallback callback) {
 		this.callback = callback;
 	}
 
-	private String makeBitmap() {	
-		return folder + "/" + String.valueOf(this.frame);
-	}
-	
 	public void pause() {
 		this.paused = true;
 	}
@@ -42,6 +43,11 @@ public class AnimatedPiece extends BitmapPiece {
 		this.paused = false; 
 	}
 
+	@Override
+	public boolean isAnimating() {
+		return super.isAnimating() || (!this.hidden && !this.paused);
+	}
+
 	@Override
 	public void update() {
 		super.update();
@@ -49,7 +55,7 @@ public class AnimatedPiece extends BitmapPiece {
 		if (this.hidden) { return; }
 		if (this.paused) { return; }
 		
-		this.setBitmap(this.makeBitmap());
+		this.setSprite(this.frames[this.frame]);
 		
 		this.speedCounter -= 1;
 		if (this.speedCounter <= 0) {		
@@ -1,12 +1,11 @@
 package com.matthewtole.androidrise.game.pieces;
 
+import com.matthewtole.androidrise.game.DrawList;
 import com.matthewtole.androidrise.game.SpriteManager;
 
-import android.graphics.Canvas;
-
 public class BitmapPiece extends Piece {
 	
-	private String bitmap = "";
+	private int sprite = SpriteManager.NONE;
 	
 	public BitmapPiece(SpriteManager sprites) {
 		super(sprites);
@@ -18,20 +17,22 @@ public class BitmapPiece extends Piece {
 	}
 
 	protected void setBitmap(String bitmap) {
-		this.bitmap = bitmap;		
+		this.sprite = this.sprites.getSprite(bitmap);
+	}
+
+	protected void setSprite(int sprite) {
+		this.sprite = sprite;
 	}
 
 	@Override
-	public void draw(Canvas canvas) {
+	public void draw(DrawList list) {
 		if (this.hidden) {
 			return;
 		}
 		
-		super.draw(canvas);		
-		if (bitmap.length() > 0) {
-			canvas.drawBitmap(this.sprites.getBitmap(this.bitmap),
-					this.location.getScreenX(), this.location.getScreenY(),
-					null);
+		super.draw(list);		
+		if (this.sprite != SpriteManager.NONE) {
+			list.add(this.sprite, this.x, this.y);
 		}
 	}
 	
@@ -2,8 +2,7 @@ package com.matthewtole.androidrise.game.pieces;
 
 import java.util.ArrayList;
 
-import android.graphics.Canvas;
-
+import com.matthewtole.androidrise.game.DrawList;
 import com.matthewtole.androidrise.game.SpriteManager;
 import com.matthewtole.androidrise.lib.GridLocation;
 
@@ -36,13 +35,26 @@ public class CompositePiece extends Piece {
 	}
 
 	@Override
-	public void draw(Canvas canvas) {
-		super.draw(canvas);
+	public void draw(DrawList list) {
+		super.draw(list);
 		for (Piece p : this.pieces) {
-			p.draw(canvas);
+			p.draw(list);
 		}
 	}
 	
+	@Override
+	public boolean isAnimating() {
+		if (super.isAnimating()) {
+			return true;
+		}
+		for (Piece p : this.pieces) {
+			if (p.isAnimating()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void update() {
 		super.update();
@@ -55,7 +67,7 @@ public class CompositePiece extends Piece {
 	public void setLocation(GridLocation loc, boolean instant) {
 		super.setLocation(loc, instant);
 		for (Piece p : this.pieces) {
-			p.setLocation(this.location.getScreenX(), this.location.getScreenY());
+			p.setLocation(this.x, this.y);
 		}
 	}
 
@@ -1,32 +1,35 @@
 package com.matthewtole.androidrise.game.pieces;
 
-import android.graphics.Canvas;
+import android.os.SystemClock;
 
-import com.matthewtole.androidrise.game.Common;
+import com.matthewtole.androidrise.game.DrawList;
 import com.matthewtole.androidrise.game.SpriteManager;
 import com.matthewtole.androidrise.lib.GridLocation;
-import com.matthewtole.androidrise.lib.ScreenLocation;
-import com.matthewtole.androidrise.lib.SimpleQueue;
 
 public class Piece {
 
 	@SuppressWarnings("unused")
 	private static final String TAG = Piece.class.getSimpleName();
 
+	private static final long MOVE_DURATION = 400;
+
 	protected SpriteManager sprites;
-	protected ScreenLocation location;
+	protected float x = 0;
+	protected float y = 0;
 	protected GridLocation gridLocation;
 
+	// A move runs from the start point to the target over MOVE_DURATION ms.
 	protected boolean isMoving = false;
-	private ScreenLocation target;
-	private int MOVE_DURATION = 400;
-	private SimpleQueue<ScreenLocation> movePoints;
+	private float startX = 0;
+	private float startY = 0;
+	private float targetX = 0;
+	private float targetY = 0;
+	private long moveStart = 0;
 
 	protected boolean hidden = false;
 
 	public Piece(SpriteManager sprites) {
 		this.sprites = sprites;
-		this.movePoints = new SimpleQueue<ScreenLocation>();
 	}
 
 	public void setLocation(GridLocation loc) {
@@ -34,38 +37,34 @@ public class Piece {
 		this.setLocation(loc, true);
 	}
 
-	public void setLocation(GridLocation loc, boolean instant) {		
+	public void setLocation(GridLocation loc, boolean instant) {
 		if (instant) {
-			this.location = new ScreenLocation(loc);
+			this.isMoving = false;
+			this.x = loc.getScreenX();
+			this.y = loc.getScreenY();
 		} else {
-			this.target = new ScreenLocation(loc);
-			this.calculateMovePoints(loc);
+			this.startX = this.x;
+			this.startY = this.y;
+			this.targetX = loc.getScreenX();
+			this.targetY = loc.getScreenY();
+			this.moveStart = SystemClock.uptimeMillis();
 			this.isMoving = true;
 		}
 		this.gridLocation = loc;
 	}
 
-	private void calculateMovePoints(GridLocation loc) {
-		float targetX = target.getScreenX();
-		float targetY = target.getScreenY();
-		float currentX = this.getLocation().getScreenX();
-		float currentY = this.getLocation().getScreenY();
-
-		float frameCount = this.MOVE_DURATION / Common.FPS - 2;
-		for (float f = 1; f < frameCount; f += 1) {
-			float thisX = currentX + (((targetX - currentX) / frameCount) * f);
-			float thisY = currentY + (((targetY - currentY) / frameCount) * f);
-			ScreenLocation s = new ScreenLocation(thisX, thisY);
-			this.movePoints.put(s);
-		}
-
-	}
-
 	public GridLocation getLocation() {
 		return this.gridLocation;
 	}
 
-	public void draw(Canvas canvas) {
+	public void draw(DrawList list) {
+	}
+
+	/**
+	 * Whether the piece will look different after its next update.
+	 */
+	public boolean isAnimating() {
+		return this.isMoving;
 	}
 
 	public void update() {
@@ -74,18 +73,34 @@ public class Piece {
 		}
 	}
 
+	/**
+	 * Puts the piece where its move should be by now, so a move takes the
+	 * same time however often update is called.
+	 */
 	protected void move() {
-		if (this.movePoints.isEmpty()) {
+		float t = (float) (SystemClock.uptimeMillis() - this.moveStart)
+				/ MOVE_DURATION;
+		if (t >= 1) {
 			this.isMoving = false;
-			this.setLocation(this.target.getScreenX(), this.target.getScreenY());
+			this.setLocation(this.targetX, this.targetY);
 			return;
 		}
-		ScreenLocation loc = this.movePoints.get();
-		this.setLocation(loc.getScreenX(), loc.getScreenY());
+		float eased = this.ease(t);
+		this.setLocation(this.startX + (this.targetX - this.startX) * eased,
+				this.startY + (this.targetY - this.startY) * eased);
+	}
+
+	/**
+	 * Maps the fraction of a move's time that has passed to the fraction of
+	 * the distance covered. Slow at both ends by default.
+	 */
+	protected float ease(float t) {
+		return t * t * (3 - 2 * t);
 	}
 
 	protected void setLocation(float x, float y) {
-		this.location = new ScreenLocation(x, y);
+		this.x = x;
+		this.y = y;
 	}
 
 	public void hide() {